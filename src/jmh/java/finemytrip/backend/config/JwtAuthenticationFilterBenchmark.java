@@ -0,0 +1,102 @@
+package finemytrip.backend.config;
+
+import finemytrip.backend.util.InProcessRevocationPropagator;
+import finemytrip.backend.util.JwtUtil;
+import finemytrip.backend.util.MemberTokenVersions;
+import finemytrip.backend.util.RevocationLog;
+import finemytrip.backend.util.TokenBlacklist;
+import finemytrip.backend.util.TokenClaims;
+import finemytrip.backend.util.VerifiedTokenCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of the filter on a public route, including mock request handling, next to the bare route match,
+// and on a protected route with a valid token: a verified-cache hit, the blacklist and token version checks, and the
+// principal either loaded through a stubbed UserDetailsService or built from the claims
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+	private static final long EXPIRATION = 3600000L;
+
+	private JwtAuthenticationFilter filter;
+	private JwtAuthenticationFilter statelessFilter;
+	private MockHttpServletRequest request;
+	private MockHttpServletRequest authenticatedRequest;
+
+	@Setup
+	public void setUp() {
+		// Keeps the member lookup out of the measurement
+		MemberTokenVersions memberTokenVersions = new MemberTokenVersions(null, 1, 1) {
+			@Override
+			public int currentVersion(Long memberId) {
+				return 0;
+			}
+
+			@Override
+			public boolean isCurrent(TokenClaims claims) {
+				return true;
+			}
+		};
+		JwtUtil jwtUtil = new JwtUtil(new VerifiedTokenCache(10000), memberTokenVersions);
+		ReflectionTestUtils.setField(jwtUtil, "secretKey", "benchmark-secret-key-that-is-long-enough-for-hs256");
+		ReflectionTestUtils.setField(jwtUtil, "expirationTime", EXPIRATION);
+		jwtUtil.init();
+
+		TokenBlacklist tokenBlacklist = new TokenBlacklist(RevocationLog.NONE, new InProcessRevocationPropagator(),
+				EXPIRATION, 8, 1000, 0.01);
+		tokenBlacklist.init();
+		UserDetails member = User.withUsername("member@example.com").password("").roles("USER").build();
+
+		filter = new JwtAuthenticationFilter(jwtUtil, tokenBlacklist, email -> member, memberTokenVersions);
+		statelessFilter = new JwtAuthenticationFilter(jwtUtil, tokenBlacklist, email -> member, memberTokenVersions);
+		ReflectionTestUtils.setField(statelessFilter, "statelessAuth", true);
+
+		request = new MockHttpServletRequest("GET", "/api/products/42");
+		authenticatedRequest = new MockHttpServletRequest("POST", "/api/products");
+		authenticatedRequest.addHeader("Authorization", "Bearer " + jwtUtil.generateToken("member@example.com", 42L));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse publicRequest() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+	@Benchmark
+	public boolean routeMatch() {
+		return PublicRoutes.MATCHER.matches("GET", "/api/products/42");
+	}
+
+	@Benchmark
+	public MockHttpServletResponse authenticatedRequest() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(authenticatedRequest, response, new MockFilterChain());
+		SecurityContextHolder.clearContext();
+		return response;
+	}
+
+	@Benchmark
+	public MockHttpServletResponse statelessAuthenticatedRequest() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		statelessFilter.doFilter(authenticatedRequest, response, new MockFilterChain());
+		SecurityContextHolder.clearContext();
+		return response;
+	}
+}
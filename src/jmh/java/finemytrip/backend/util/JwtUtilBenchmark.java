@@ -0,0 +1,80 @@
+package finemytrip.backend.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Cost of authenticating one request: the per-call key and parser setup JwtUtil used to do, a full verification
+// with the cached parser, and a verified-cache hit
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilBenchmark {
+
+	private static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-hs256";
+
+	private JwtUtil jwtUtil;
+	private JwtUtil uncachedJwtUtil;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		// Keeps the member lookup out of the measurement
+		MemberTokenVersions memberTokenVersions = new MemberTokenVersions(null, 1, 1) {
+			@Override
+			public int currentVersion(Long memberId) {
+				return 0;
+			}
+		};
+		jwtUtil = jwtUtil(new VerifiedTokenCache(10000), memberTokenVersions);
+		// Never remembers a token, so every parse verifies the signature
+		uncachedJwtUtil = jwtUtil(new VerifiedTokenCache(1) {
+			@Override
+			public TokenClaims get(String tokenDigest) {
+				return null;
+			}
+
+			@Override
+			public void put(TokenClaims claims) {
+			}
+		}, memberTokenVersions);
+		token = jwtUtil.generateToken("member@example.com", 42L);
+	}
+
+	private static JwtUtil jwtUtil(VerifiedTokenCache verifiedTokenCache, MemberTokenVersions memberTokenVersions) {
+		JwtUtil jwtUtil = new JwtUtil(verifiedTokenCache, memberTokenVersions);
+		ReflectionTestUtils.setField(jwtUtil, "secretKey", SECRET);
+		ReflectionTestUtils.setField(jwtUtil, "expirationTime", 3600000L);
+		jwtUtil.init();
+		return jwtUtil;
+	}
+
+	@Benchmark
+	public Object parseWithFreshParser() {
+		return Jwts.parser()
+				.verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+				.build()
+				.parseSignedClaims(token)
+				.getPayload();
+	}
+
+	@Benchmark
+	public Object parseTokenCacheMiss() {
+		return uncachedJwtUtil.parseToken(token);
+	}
+
+	@Benchmark
+	public Object parseTokenCacheHit() {
+		return jwtUtil.parseToken(token);
+	}
+}
@@ -0,0 +1,59 @@
+package finemytrip.backend.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+// The miss path of the revocation filter against the plain map the blacklist used before
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RotatingBloomFilterBenchmark {
+
+	private static final int REVOKED = 100_000;
+	private static final int PROBES = 10_000;
+
+	private RotatingBloomFilter filter;
+	private ConcurrentMap<String, Long> map;
+	private String[] probes;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		filter = new RotatingBloomFilter(8, 60_000, REVOKED, 0.01);
+		map = new ConcurrentHashMap<>();
+		long expiresAt = System.currentTimeMillis() + 60_000;
+		for (int i = 0; i < REVOKED; i++) {
+			String digest = TokenDigests.sha256("revoked-" + i);
+			filter.put(digest, expiresAt);
+			map.put(digest, expiresAt);
+		}
+		probes = new String[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = TokenDigests.sha256("active-" + i);
+		}
+	}
+
+	@Benchmark
+	public boolean bloomFilterMiss() {
+		return filter.mightContain(nextProbe());
+	}
+
+	@Benchmark
+	public boolean mapMiss() {
+		return map.containsKey(nextProbe());
+	}
+
+	private String nextProbe() {
+		next = (next + 1) % PROBES;
+		return probes[next];
+	}
+}
@@ -0,0 +1,48 @@
+package finemytrip.backend.config;
+
+import finemytrip.backend.dto.ProductRequestDto;
+import finemytrip.backend.util.Base64FileDeserializer;
+import finemytrip.backend.util.DataUriStrippingInputStream;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Set;
+
+// Lets product image fields stream from the request body into staging files instead of heap strings
+@ControllerAdvice
+public class DataUriRequestBodyAdvice extends RequestBodyAdviceAdapter {
+
+    private static final Set<String> IMAGE_PROPERTIES = Base64FileDeserializer.propertiesOf(ProductRequestDto.class);
+
+    @Override
+    public boolean supports(@NonNull MethodParameter methodParameter, @NonNull Type targetType,
+                            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return targetType == ProductRequestDto.class;
+    }
+
+    @Override
+    public @NonNull HttpInputMessage beforeBodyRead(@NonNull HttpInputMessage inputMessage, @NonNull MethodParameter parameter,
+                                                    @NonNull Type targetType,
+                                                    @NonNull Class<? extends HttpMessageConverter<?>> converterType) throws IOException {
+        InputStream body = new DataUriStrippingInputStream(inputMessage.getBody(), IMAGE_PROPERTIES);
+        return new HttpInputMessage() {
+            @Override
+            public @NonNull InputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public @NonNull HttpHeaders getHeaders() {
+                return inputMessage.getHeaders();
+            }
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package finemytrip.backend.config;
+
+import finemytrip.backend.util.RouteMatcher;
+import finemytrip.backend.util.RouteMatcher.Route;
+
+import java.util.List;
+
+// Single source of the unauthenticated routes for both SecurityConfig and JwtAuthenticationFilter.
+// IDs are constrained to digits so that sibling endpoints such as /api/main-slides/admin stay protected.
+public final class PublicRoutes {
+
+    public static final List<Route> ROUTES = List.of(
+            new Route("GET", "/"),
+            new Route("POST", "/api/members/register"),
+            new Route("POST", "/api/members/login"),
+            new Route("GET", "/api/members"),
+            new Route("GET", "/api/members/{id:\\d+}"),
+            new Route("GET", "/api/members/email/{email}"),
+            // Main slide API (GET)
+            new Route("GET", "/api/main-slides"),
+            new Route("GET", "/api/main-slides/active"),
+            new Route("GET", "/api/main-slides/{id:\\d+}"),
+            // Product API (GET)
+            new Route("GET", "/api/products"),
+            new Route("GET", "/api/products/changes"),
+            new Route("GET", "/api/products/{id:\\d+}"),
+            // File upload access - Allow all HTTP methods
+            new Route(null, "/uploads/**"),
+            new Route(null, "/h2-console/**")
+    );
+
+    public static final RouteMatcher MATCHER = RouteMatcher.compile(ROUTES);
+
+    private PublicRoutes() {
+    }
+}
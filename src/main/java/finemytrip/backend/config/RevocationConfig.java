@@ -0,0 +1,34 @@
+package finemytrip.backend.config;
+
+import finemytrip.backend.util.FileRevocationLog;
+import finemytrip.backend.util.InProcessRevocationPropagator;
+import finemytrip.backend.util.RevocationLog;
+import finemytrip.backend.util.RevocationPropagator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+@Configuration
+public class RevocationConfig {
+
+    // Leave the path empty to keep revocations in memory only; another store sets jwt.revocation.log and defines its own bean
+    @Bean
+    @ConditionalOnProperty(name = "jwt.revocation.log", havingValue = "file", matchIfMissing = true)
+    public RevocationLog revocationLog(@Value("${jwt.revocation.log-path:}") String logPath,
+                                       @Value("${jwt.revocation.log-compact-min-records:10000}") int compactMinRecords) {
+        if (logPath.isBlank()) {
+            return RevocationLog.NONE;
+        }
+        return new FileRevocationLog(Paths.get(logPath.trim()), compactMinRecords);
+    }
+
+    // Multi-node deployments set jwt.revocation.propagator and define a broker-backed propagator instead
+    @Bean
+    @ConditionalOnProperty(name = "jwt.revocation.propagator", havingValue = "in-process", matchIfMissing = true)
+    public RevocationPropagator revocationPropagator() {
+        return new InProcessRevocationPropagator();
+    }
+}
@@ -1,10 +1,12 @@
 package finemytrip.backend.config;
 
 import finemytrip.backend.service.CustomUserDetailsService;
+import finemytrip.backend.util.RouteMatcher.Route;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -14,7 +16,9 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -22,6 +26,9 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
@@ -33,9 +40,21 @@ public class SecurityConfig {
     @Value("${cors.allowed-origins:http://localhost:3000}")
     private String corsAllowedOrigins;
 
+    // New hashes use the configured encoder; stored hashes on other settings are upgraded on login
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.encoder:bcrypt}") String encodingId,
+                                           @Value("${security.password.bcrypt-strength:10}") int bcryptStrength) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(encodingId)) {
+            throw new IllegalArgumentException("Unsupported password encoder: " + encodingId);
+        }
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(encodingId, encoders);
+        // Hashes stored before the {id} prefix was introduced are plain BCrypt
+        passwordEncoder.setDefaultPasswordEncoderForMatches(encoders.get("bcrypt"));
+        return passwordEncoder;
     }
 
     @Bean
@@ -70,24 +89,16 @@ public class SecurityConfig {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(AbstractHttpConfigurer::disable)
-            .authorizeHttpRequests(auth -> auth
-                .requestMatchers("GET", "/").permitAll()
-                .requestMatchers("POST", "/api/members/register").permitAll()
-                .requestMatchers("POST", "/api/members/login").permitAll()
-                .requestMatchers("GET", "/api/members").permitAll()
-                .requestMatchers("GET", "/api/members/{id}").permitAll()
-                .requestMatchers("GET", "/api/members/email/{email}").permitAll()
-                // Main slide API (GET)
-                .requestMatchers("GET", "/api/main-slides").permitAll()
-                .requestMatchers("GET", "/api/main-slides/{id}").permitAll()
-                // Product API (GET)
-                .requestMatchers("GET", "/api/products").permitAll()
-                .requestMatchers("GET", "/api/products/{id}").permitAll()
-                // File upload access - Allow all HTTP methods
-                .requestMatchers("/uploads/**").permitAll()
-                .requestMatchers("/h2-console/**").permitAll()
-                .anyRequest().authenticated()
-            )
+            .authorizeHttpRequests(auth -> {
+                for (Route route : PublicRoutes.ROUTES) {
+                    if (route.method() == null) {
+                        auth.requestMatchers(route.pattern()).permitAll();
+                    } else {
+                        auth.requestMatchers(HttpMethod.valueOf(route.method()), route.pattern()).permitAll();
+                    }
+                }
+                auth.anyRequest().authenticated();
+            })
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authenticationProvider(authenticationProvider)
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
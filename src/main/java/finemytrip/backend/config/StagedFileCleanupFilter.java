@@ -0,0 +1,61 @@
+package finemytrip.backend.config;
+
+import finemytrip.backend.util.StagedFile;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Deletes staging files a request left behind, e.g. when JSON binding or @Valid rejected the body after an image field
+// was decoded. Published files were moved out of staging already, so only the leftovers are still there.
+@Slf4j
+@Component
+public class StagedFileCleanupFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // An async request is still running; its final dispatch comes through here again
+            if (!request.isAsyncStarted()) {
+                deleteStagedFiles(request);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private void deleteStagedFiles(HttpServletRequest request) {
+        @SuppressWarnings("unchecked")
+        List<Path> paths = (List<Path>) request.getAttribute(StagedFile.REQUEST_ATTRIBUTE);
+        if (paths == null) {
+            return;
+        }
+        request.removeAttribute(StagedFile.REQUEST_ATTRIBUTE);
+        for (Path path : paths) {
+            try {
+                if (Files.deleteIfExists(path)) {
+                    log.debug("Removed abandoned staging file: {}", path.getFileName());
+                }
+            } catch (IOException e) {
+                // The orphan sweep removes it later
+                log.warn("Failed to remove staging file {}: {}", path.getFileName(), e.getMessage());
+            }
+        }
+    }
+}
@@ -1,31 +0,0 @@
-package finemytrip.backend.config;
-
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-import java.io.File;
-
-@Configuration
-public class WebConfig implements WebMvcConfigurer {
-
-    @Value("${file.upload.path}")
-    private String uploadPath;
-
-    @Value("${file.upload.url-prefix}")
-    private String urlPrefix;
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        File uploadDir = new File(uploadPath);
-        if (!uploadDir.exists()) {
-            uploadDir.mkdirs();
-        }
-        
-        String absolutePath = uploadDir.getAbsolutePath();
-        
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + absolutePath + "/");
-    }
-} 
\ No newline at end of file
@@ -2,12 +2,16 @@ package finemytrip.backend.controller;
 
 import finemytrip.backend.dto.MainSlideRequestDto;
 import finemytrip.backend.dto.MainSlideResponseDto;
+import finemytrip.backend.service.ActiveSlideWindow;
 import finemytrip.backend.service.MainSlideService;
+import finemytrip.backend.service.MainSlideSnapshot;
+import finemytrip.backend.util.EntityTags;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.util.List;
@@ -20,10 +24,16 @@ public class MainSlideController {
     
     private final MainSlideService mainSlideService;
     
+    // Served from the pre-serialized snapshot; unchanged lists answer 304 without a body
     @GetMapping
-    public ResponseEntity<List<MainSlideResponseDto>> getAllSlides() {
-        List<MainSlideResponseDto> slides = mainSlideService.getAllSlides();
-        return ResponseEntity.ok(slides);
+    public ResponseEntity<byte[]> getAllSlides(WebRequest webRequest) {
+        MainSlideSnapshot snapshot = mainSlideService.getSnapshot();
+        if (webRequest.checkNotModified(snapshot.getEtag(), snapshot.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getJson());
     }
     
     @GetMapping("/admin")
@@ -33,15 +43,24 @@ public class MainSlideController {
     }
     
     @GetMapping("/active")
-    public ResponseEntity<List<MainSlideResponseDto>> getActiveSlides() {
-        List<MainSlideResponseDto> slides = mainSlideService.getActiveSlides();
-        return ResponseEntity.ok(slides);
+    public ResponseEntity<byte[]> getActiveSlides(WebRequest webRequest) {
+        ActiveSlideWindow window = mainSlideService.getActiveWindow();
+        if (webRequest.checkNotModified(window.getEtag(), window.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(window.getJson());
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<MainSlideResponseDto> getSlideById(@PathVariable Long id) {
+    public ResponseEntity<MainSlideResponseDto> getSlideById(@PathVariable Long id, WebRequest webRequest) {
         try {
             MainSlideResponseDto slide = mainSlideService.getSlideById(id);
+            if (webRequest.checkNotModified(EntityTags.of(slide.getId(), slide.getUpdatedAt()),
+                    EntityTags.toEpochMillis(slide.getUpdatedAt()))) {
+                return null;
+            }
             return ResponseEntity.ok(slide);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
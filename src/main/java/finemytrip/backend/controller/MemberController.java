@@ -12,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/members")
@@ -21,21 +22,24 @@ public class MemberController {
     private final MemberService memberService;
 
     @GetMapping
-    public ResponseEntity<List<MemberResponseDto>> getAllMembers() {
-        List<MemberResponseDto> members = memberService.getAllMembers();
-        return ResponseEntity.ok(members);
+    public ResponseEntity<?> getAllMembers(@RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer size) {
+        if (cursor == null && size == null) {
+            List<MemberResponseDto> members = memberService.getAllMembers();
+            return ResponseEntity.ok(members);
+        }
+        return ResponseEntity.ok(memberService.getMembersPage(cursor, size));
     }
 
     @PostMapping("/register")
-    public ResponseEntity<MemberResponseDto> register(@RequestBody MemberRegisterRequestDto requestDto) {
-        MemberResponseDto responseDto = memberService.register(requestDto);
-        return ResponseEntity.ok(responseDto);
+    public CompletableFuture<ResponseEntity<MemberResponseDto>> register(@Valid @RequestBody MemberRegisterRequestDto requestDto) {
+        return memberService.register(requestDto).thenApply(ResponseEntity::ok);
     }
 
+    // Completes once the password pool has verified the hash, releasing the request thread meanwhile
     @PostMapping("/login")
-    public ResponseEntity<LoginResponseDto> login(@RequestBody MemberLoginRequestDto requestDto) {
-        LoginResponseDto responseDto = memberService.login(requestDto);
-        return ResponseEntity.ok(responseDto);
+    public CompletableFuture<ResponseEntity<LoginResponseDto>> login(@RequestBody MemberLoginRequestDto requestDto) {
+        return memberService.login(requestDto).thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/{id}")
@@ -1,14 +1,19 @@
 package finemytrip.backend.controller;
 
+import finemytrip.backend.dto.ProductChangesResponseDto;
 import finemytrip.backend.dto.ProductRequestDto;
 import finemytrip.backend.dto.ProductResponseDto;
+import finemytrip.backend.dto.ProductSearchRequestDto;
+import finemytrip.backend.service.ProductCatalogSnapshot;
 import finemytrip.backend.service.ProductService;
+import finemytrip.backend.util.EntityTags;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.util.List;
@@ -22,14 +27,32 @@ public class ProductController {
     private final ProductService productService;
 
     @GetMapping
-    public ResponseEntity<List<ProductResponseDto>> getAllProducts() {
-        List<ProductResponseDto> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<?> getAllProducts(@ModelAttribute ProductSearchRequestDto searchDto, WebRequest webRequest) {
+        if (!searchDto.isPaged()) {
+            // Validators come with the cached catalog, so unchanged lists answer 304 before serialization
+            ProductCatalogSnapshot catalog = productService.getCatalog();
+            if (webRequest.checkNotModified(catalog.getEtag(), catalog.getLastModified())) {
+                return null;
+            }
+            List<ProductResponseDto> products = catalog.getProducts();
+            return ResponseEntity.ok(products);
+        }
+        return ResponseEntity.ok(productService.searchProducts(searchDto));
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesResponseDto> getProductChanges(
+            @RequestParam(required = false) String since) {
+        return ResponseEntity.ok(productService.getProductChanges(since));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponseDto> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductResponseDto> getProductById(@PathVariable Long id, WebRequest webRequest) {
         ProductResponseDto product = productService.getProductById(id);
+        if (webRequest.checkNotModified(EntityTags.of(product.getId(), product.getUpdatedAt()),
+                EntityTags.toEpochMillis(product.getUpdatedAt()))) {
+            return null;
+        }
         return ResponseEntity.ok(product);
     }
 
@@ -0,0 +1,16 @@
+package finemytrip.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageVariantDto {
+    private String sourceUrl;
+    private Integer width;
+    private String url;
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -21,6 +22,11 @@ public class MainSlideResponseDto {
     private String imgSrc;
     private String imgAlt;
     private String bgSrc;
+    // Resized copies of imgSrc and bgSrc; pick the narrowest one at least as wide as the slot
+    private List<ImageVariantDto> imageVariants;
+    private LocalDateTime startAt;
+    private LocalDateTime endAt;
+    private Integer displayOrder;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+package finemytrip.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangesResponseDto {
+    private List<ProductResponseDto> upserts;
+    private List<Long> deletedIds;
+
+    // Pass back as "since" on the next poll
+    private Long watermark;
+
+    // "since" could not be served (unknown, or older than the tombstone retention): upserts hold the whole catalog
+    // and replace the client's copy
+    private boolean resyncRequired;
+}
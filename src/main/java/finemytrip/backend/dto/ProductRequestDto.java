@@ -1,5 +1,8 @@
 package finemytrip.backend.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import finemytrip.backend.util.Base64FileDeserializer;
+import finemytrip.backend.util.StagedFile;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,8 +16,11 @@ import java.util.List;
 @AllArgsConstructor
 public class ProductRequestDto {
     private String tripType;
-    private String thumbnailSrc;
-    private String imgSrc;
+    // Image fields carry Base64 (optionally a data URI) and are decoded to staging files while the body is parsed
+    @JsonDeserialize(using = Base64FileDeserializer.class)
+    private StagedFile thumbnailSrc;
+    @JsonDeserialize(using = Base64FileDeserializer.class)
+    private StagedFile imgSrc;
     private Integer discountRate;
     private String title;
     private List<String> infoGroup;
@@ -25,7 +31,8 @@ public class ProductRequestDto {
 
     private String introTitle;
     private String introText;
-    private String introImgSrc;
+    @JsonDeserialize(using = Base64FileDeserializer.class)
+    private StagedFile introImgSrc;
     
     // Securely handle all special characters in introText
     public String getIntroText() {
@@ -29,6 +29,9 @@ public class ProductResponseDto {
     private String introText;
     private String introImgSrc;
 
+    // Resized copies of the images above; pick the narrowest one at least as wide as the slot
+    private List<ImageVariantDto> imageVariants;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 } 
\ No newline at end of file
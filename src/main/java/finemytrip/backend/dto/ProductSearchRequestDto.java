@@ -0,0 +1,33 @@
+package finemytrip.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchRequestDto {
+    private Integer page;
+    private Integer size;
+    private String cursor;
+
+    // Filters
+    private String tripType;
+    private Integer minPrice;
+    private Integer maxPrice;
+    private Double minRating;
+
+    // Sort property (currPrice, rating, sold, createdAt) and direction (asc, desc)
+    private String sort;
+    private String direction;
+
+    // The plain listing is kept for clients that send no paging or filter parameters
+    public boolean isPaged() {
+        return page != null || size != null || cursor != null
+                || tripType != null || minPrice != null || maxPrice != null || minRating != null
+                || sort != null || direction != null;
+    }
+}
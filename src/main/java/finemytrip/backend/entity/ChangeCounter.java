@@ -0,0 +1,23 @@
+package finemytrip.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A named counter row; see ChangeCounterService
+@Entity
+@Table(name = "change_counters")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeCounter {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "counter_value", nullable = false)
+    private Long value;
+}
@@ -0,0 +1,25 @@
+package finemytrip.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A resized copy of one of the owning entity's images
+@Embeddable
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageVariant {
+    @Column(name = "source_url", nullable = false)
+    private String sourceUrl;
+
+    @Column(nullable = false)
+    private Integer width;
+
+    @Column(nullable = false)
+    private String url;
+}
@@ -5,14 +5,19 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "main_slides")
+@Table(name = "main_slides", indexes = {
+        @Index(name = "idx_main_slides_schedule", columnList = "start_at, end_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -35,6 +40,16 @@ public class MainSlide {
     
     private String date;
     
+    // Display window; a missing bound leaves that side open
+    @Column(name = "start_at")
+    private LocalDateTime startAt;
+    
+    @Column(name = "end_at")
+    private LocalDateTime endAt;
+    
+    @Column(name = "display_order")
+    private Integer displayOrder;
+    
     @Column(name = "img_src")
     private String imgSrc;
     
@@ -44,6 +59,13 @@ public class MainSlide {
     @Column(name = "bg_src")
     private String bgSrc;
     
+    // Resized copies of imgSrc and bgSrc, added in the background after upload
+    @ElementCollection
+    @BatchSize(size = 100)
+    @CollectionTable(name = "main_slide_image_variants", joinColumns = @JoinColumn(name = "main_slide_id"))
+    @Builder.Default
+    private List<ImageVariant> imageVariants = new ArrayList<>();
+    
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
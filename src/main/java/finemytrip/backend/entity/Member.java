@@ -12,18 +12,25 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "members")
+@Table(name = "members", indexes = {
+        @Index(name = "idx_members_created_at", columnList = "created_at, id")
+}, uniqueConstraints = {
+        // Named so that MemberService can tell a duplicate email from other integrity violations
+        @UniqueConstraint(name = Member.EMAIL_CONSTRAINT, columnNames = "email")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
 public class Member {
+    public static final String EMAIL_CONSTRAINT = "uk_members_email";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     @Column(nullable = false)
@@ -32,6 +39,11 @@ public class Member {
     @Column(name = "marketing_agreed")
     private Boolean marketingAgreed = false;
 
+    // Tokens carrying a lower version were revoked; see MemberTokenVersions
+    @Column(name = "token_version")
+    @Builder.Default
+    private Integer tokenVersion = 0;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
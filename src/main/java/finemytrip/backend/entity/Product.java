@@ -5,15 +5,24 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_trip_type_curr_price", columnList = "trip_type, curr_price"),
+        @Index(name = "idx_products_curr_price", columnList = "curr_price, id"),
+        @Index(name = "idx_products_rating", columnList = "rating, id"),
+        @Index(name = "idx_products_sold", columnList = "sold, id"),
+        @Index(name = "idx_products_created_at", columnList = "created_at, id"),
+        @Index(name = "idx_products_change_version", columnList = "change_version")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -31,6 +40,7 @@ public class Product {
     private String title;
     
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "product_info_groups", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "info_group")
     private List<String> infoGroup;
@@ -47,6 +57,17 @@ public class Product {
     
     private String introImgSrc;
 
+    // Resized copies of the images above, added in the background after upload
+    @ElementCollection
+    @BatchSize(size = 100)
+    @CollectionTable(name = "product_image_variants", joinColumns = @JoinColumn(name = "product_id"))
+    @Builder.Default
+    private List<ImageVariant> imageVariants = new ArrayList<>();
+
+    // Position in the change feed, handed out by ChangeCounterService in commit order
+    @Column(name = "change_version")
+    private Long changeVersion;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
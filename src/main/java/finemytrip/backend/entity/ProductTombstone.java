@@ -0,0 +1,34 @@
+package finemytrip.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Records a deleted product so that delta-sync clients can drop it
+@Entity
+@Table(name = "product_tombstones", indexes = {
+        @Index(name = "idx_product_tombstones_deleted_at", columnList = "deleted_at"),
+        @Index(name = "idx_product_tombstones_change_version", columnList = "change_version")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    @Column(name = "change_version")
+    private Long changeVersion;
+}
@@ -0,0 +1,33 @@
+package finemytrip.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One stored upload, named by its content hash and shared by every entity that references the same bytes
+@Entity
+@Table(name = "uploaded_files")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadedFile {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Path under the upload directory, e.g. ab/cd/<hash>.png
+    @Column(nullable = false, unique = true)
+    private String filename;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "reference_count", nullable = false)
+    private Integer referenceCount;
+}
@@ -0,0 +1,9 @@
+package finemytrip.backend.exception;
+
+// Raised when the unique index on members.email rejects an insert; mapped to 409
+public class DuplicateEmailException extends RuntimeException {
+
+    public DuplicateEmailException(String message) {
+        super(message);
+    }
+}
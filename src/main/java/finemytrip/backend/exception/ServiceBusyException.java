@@ -0,0 +1,9 @@
+package finemytrip.backend.exception;
+
+// Thrown when a bounded worker pool is saturated; mapped to 429 so clients back off
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package finemytrip.backend.repository;
+
+import finemytrip.backend.entity.ChangeCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ChangeCounterRepository extends JpaRepository<ChangeCounter, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ChangeCounter c WHERE c.name = :name")
+    Optional<ChangeCounter> findForUpdate(@Param("name") String name);
+}
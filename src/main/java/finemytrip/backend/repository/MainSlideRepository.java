@@ -1,9 +1,17 @@
 package finemytrip.backend.repository;
 
 import finemytrip.backend.entity.MainSlide;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface MainSlideRepository extends JpaRepository<MainSlide, Long> {
+
+    // Serializes writers of a slide; its image variant collection is rewritten whole on every change
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<MainSlide> findWithLockById(Long id);
 } 
\ No newline at end of file
@@ -1,13 +1,37 @@
 package finemytrip.backend.repository;
 
 import finemytrip.backend.entity.Member;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MemberRepository extends JpaRepository<Member, Long> {
     Optional<Member> findByEmail(String email);
-    boolean existsByEmail(String email);
+
+    List<Member> findAllByOrderByCreatedAtAscIdAsc(Pageable pageable);
+
+    @Query("SELECT COALESCE(m.tokenVersion, 0) FROM Member m WHERE m.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Query("SELECT m FROM Member m " +
+           "WHERE m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id) " +
+           "ORDER BY m.createdAt ASC, m.id ASC")
+    List<Member> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // Compare-and-set: a password changed since the hash was read is left alone
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Member m SET m.password = :newPassword WHERE m.id = :id AND m.password = :oldPassword")
+    int updatePasswordIfUnchanged(@Param("id") Long id,
+                                  @Param("oldPassword") String oldPassword,
+                                  @Param("newPassword") String newPassword);
 } 
\ No newline at end of file
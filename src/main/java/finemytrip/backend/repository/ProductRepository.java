@@ -1,9 +1,31 @@
 package finemytrip.backend.repository;
 
 import finemytrip.backend.entity.Product;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
-} 
\ No newline at end of file
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    // Load the info groups in the same statement instead of one select per product
+    @Override
+    @EntityGraph(attributePaths = "infoGroup")
+    List<Product> findAll();
+
+    @EntityGraph(attributePaths = "infoGroup")
+    Optional<Product> findWithInfoGroupById(Long id);
+
+    // Serializes writers of a product; its image variant collection is rewritten whole on every change
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Product> findWithLockById(Long id);
+
+    @EntityGraph(attributePaths = "infoGroup")
+    List<Product> findByChangeVersionBetweenOrderByChangeVersionAsc(Long from, Long to);
+}
@@ -0,0 +1,71 @@
+package finemytrip.backend.repository;
+
+import finemytrip.backend.entity.Product;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> withFilters(String tripType, Integer minPrice, Integer maxPrice, Double minRating) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (tripType != null && !tripType.isBlank()) {
+                predicates.add(cb.equal(root.get("tripType"), tripType));
+            }
+            if (minPrice != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<Integer>get("currPrice"), minPrice));
+            }
+            if (maxPrice != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<Integer>get("currPrice"), maxPrice));
+            }
+            if (minRating != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<Double>get("rating"), minRating));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // Sorted listings page through rows with a sort key first, seeking on the (sort key, id) index
+    public static Specification<Product> hasSortKey(String property) {
+        return (root, query, cb) -> cb.isNotNull(root.get(property));
+    }
+
+    // ...and then through the rows without one, seeking on id alone
+    public static Specification<Product> lacksSortKey(String property) {
+        return (root, query, cb) -> cb.isNull(root.get(property));
+    }
+
+    // Seek past the (sort key, id) position of the previous page's last row
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> seekAfter(String property, Comparable sortKey, Long id, Sort.Direction direction) {
+        return (root, query, cb) -> {
+            Path<Comparable> key = root.get(property);
+            Path<Long> productId = root.get("id");
+
+            if (direction.isAscending()) {
+                return cb.or(
+                        cb.greaterThan(key, sortKey),
+                        cb.and(cb.equal(key, sortKey), cb.greaterThan(productId, id)));
+            }
+            return cb.or(
+                    cb.lessThan(key, sortKey),
+                    cb.and(cb.equal(key, sortKey), cb.lessThan(productId, id)));
+        };
+    }
+
+    public static Specification<Product> seekAfterId(Long id, Sort.Direction direction) {
+        return (root, query, cb) -> direction.isAscending()
+                ? cb.greaterThan(root.get("id"), id)
+                : cb.lessThan(root.get("id"), id);
+    }
+}
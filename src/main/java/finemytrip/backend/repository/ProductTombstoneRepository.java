@@ -0,0 +1,27 @@
+package finemytrip.backend.repository;
+
+import finemytrip.backend.entity.ProductTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, Long> {
+    List<ProductTombstone> findByChangeVersionBetweenOrderByChangeVersionAsc(Long from, Long to);
+
+    Optional<ProductTombstone> findTopByOrderByDeletedAtDesc();
+
+    Optional<ProductTombstone> findTopByDeletedAtBeforeOrderByChangeVersionDesc(LocalDateTime cutoff);
+
+    // Tombstones written before versions existed are never served by the feed and only age out
+    @Modifying
+    @Query("DELETE FROM ProductTombstone t WHERE t.changeVersion <= :horizon "
+            + "OR (t.changeVersion IS NULL AND t.deletedAt < :cutoff)")
+    int deleteUpTo(@Param("horizon") Long horizon, @Param("cutoff") LocalDateTime cutoff);
+}
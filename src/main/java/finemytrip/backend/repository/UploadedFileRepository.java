@@ -0,0 +1,20 @@
+package finemytrip.backend.repository;
+
+import finemytrip.backend.entity.UploadedFile;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadedFileRepository extends JpaRepository<UploadedFile, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<UploadedFile> findByFilename(String filename);
+
+    List<UploadedFile> findAllByFilenameIn(Collection<String> filenames);
+}
@@ -0,0 +1,40 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.dto.MainSlideResponseDto;
+import finemytrip.backend.util.EntityTags;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Slides active between two consecutive schedule boundaries of one snapshot
+@Getter
+public class ActiveSlideWindow {
+    private final MainSlideSnapshot source;
+    private final LocalDateTime validFrom;
+    private final LocalDateTime validUntil;
+    private final List<MainSlideResponseDto> slides;
+    private final byte[] json;
+    private final String etag;
+    private final long lastModified;
+
+    public ActiveSlideWindow(MainSlideSnapshot source, LocalDateTime validFrom, LocalDateTime validUntil,
+                             List<MainSlideResponseDto> slides, byte[] json) {
+        this.source = source;
+        this.validFrom = validFrom;
+        this.validUntil = validUntil;
+        this.slides = List.copyOf(slides);
+        this.json = json;
+        this.etag = EntityTags.of(json);
+
+        // The active set also changes when a window opens, without any slide being modified
+        long openedAt = EntityTags.toEpochMillis(validFrom);
+        this.lastModified = Math.max(source.getLastModified(), openedAt);
+    }
+
+    public boolean covers(MainSlideSnapshot snapshot, LocalDateTime now) {
+        return source == snapshot
+                && (validFrom == null || !now.isBefore(validFrom))
+                && (validUntil == null || now.isBefore(validUntil));
+    }
+}
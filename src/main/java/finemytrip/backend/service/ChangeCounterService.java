@@ -0,0 +1,67 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.entity.ChangeCounter;
+import finemytrip.backend.repository.ChangeCounterRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Versions handed out in commit order: the counter row stays locked until the writing transaction ends,
+// so once a version is visible every lower one has committed too. Readers can use it as a gap-free watermark.
+@Service
+@RequiredArgsConstructor
+public class ChangeCounterService {
+
+    public static final String PRODUCTS = "products";
+    // Highest product change version whose tombstones have been pruned
+    public static final String PRODUCT_TOMBSTONE_HORIZON = "product-tombstone-horizon";
+
+    private final ChangeCounterRepository changeCounterRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Created up front so that concurrent first writes never race to insert the row
+    @PostConstruct
+    public void init() {
+        for (String name : List.of(PRODUCTS, PRODUCT_TOMBSTONE_HORIZON)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!changeCounterRepository.existsById(name)) {
+                        changeCounterRepository.saveAndFlush(ChangeCounter.builder().name(name).value(0L).build());
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Another node created it first
+            }
+        }
+    }
+
+    // Serializes the callers' transactions on the counter row until they commit
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next(String name) {
+        ChangeCounter counter = changeCounterRepository.findForUpdate(name)
+                .orElseThrow(() -> new IllegalStateException("Missing change counter: " + name));
+        counter.setValue(counter.getValue() + 1);
+        return counter.getValue();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void raiseTo(String name, long value) {
+        ChangeCounter counter = changeCounterRepository.findForUpdate(name)
+                .orElseThrow(() -> new IllegalStateException("Missing change counter: " + name));
+        counter.setValue(Math.max(counter.getValue(), value));
+    }
+
+    // The last committed value
+    @Transactional(readOnly = true)
+    public long current(String name) {
+        return changeCounterRepository.findById(name)
+                .map(ChangeCounter::getValue)
+                .orElse(0L);
+    }
+}
@@ -2,7 +2,11 @@ package finemytrip.backend.service;
 
 import finemytrip.backend.entity.Member;
 import finemytrip.backend.repository.MemberRepository;
-import lombok.RequiredArgsConstructor;
+import finemytrip.backend.util.BoundedTtlCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,13 +14,37 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-@RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, MeterBinder {
     
     private final MemberRepository memberRepository;
+    private final BoundedTtlCache<String, UserDetails> userCache;
+    
+    public CustomUserDetailsService(MemberRepository memberRepository,
+                                    @Value("${security.user-cache.max-size:1000}") int maxSize,
+                                    @Value("${security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.memberRepository = memberRepository;
+        this.userCache = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+    }
     
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        UserDetails cached = userCache.get(email, this::loadFromDatabase);
+        
+        // Hand out a copy: authentication may erase the credentials of the returned instance
+        return User.withUserDetails(cached).build();
+    }
+    
+    // Must be called whenever a member is deleted or its password changes
+    public void evict(String email) {
+        userCache.invalidate(email);
+    }
+    
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        userCache.registerMetrics(registry, "userDetails");
+    }
+    
+    private UserDetails loadFromDatabase(String email) {
         Member member = memberRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
         
@@ -26,4 +54,4 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .roles("USER")
                 .build();
     }
-} 
\ No newline at end of file
+}
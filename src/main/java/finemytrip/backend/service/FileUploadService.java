@@ -1,74 +1,318 @@
 package finemytrip.backend.service;
 
+import finemytrip.backend.entity.UploadedFile;
+import finemytrip.backend.repository.UploadedFileRepository;
+import finemytrip.backend.util.StagedFile;
+import finemytrip.backend.util.TransactionUtils;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class FileUploadService {
 
+    // Columns holding URLs into the upload store, as (table, column)
+    static final List<String[]> REFERENCE_COLUMNS = List.of(
+            new String[]{"products", "thumbnail_src"},
+            new String[]{"products", "img_src"},
+            new String[]{"products", "intro_img_src"},
+            new String[]{"main_slides", "img_src"},
+            new String[]{"main_slides", "bg_src"},
+            new String[]{"product_image_variants", "url"},
+            new String[]{"main_slide_image_variants", "url"});
+
+    private static final String INSERT_TRACKING_SQL =
+            "insert into uploaded_files (filename, content_hash, size, reference_count) values (?, ?, ?, 1)";
+    private static final int MAX_TRACKING_ATTEMPTS = 3;
+
+    private final UploadedFileRepository uploadedFileRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Files whose last reference is gone, removed from disk in batches once the releasing transaction has committed.
+    // Each maps to the publish sequence its release saw: content published after that was uploaded again and stays.
+    private final Map<String, Long> pendingDeletions = new ConcurrentHashMap<>();
+
+    // Releases of a last reference whose transaction has not ended yet, per file
+    private final Map<String, Integer> releasesInFlight = new ConcurrentHashMap<>();
+
+    // Latest publish sequence of files with a release in flight or pending; other files never need it
+    private final Map<String, Long> lastPublished = new ConcurrentHashMap<>();
+    private final AtomicLong publishSequence = new AtomicLong();
+
+    // Orders publishing against physical deletes, so content re-uploaded while its delete is pending survives
+    private final Object publishLock = new Object();
+
     @Value("${file.upload.path}")
     private String uploadPath;
 
     @Value("${file.upload.url-prefix}")
     private String urlPrefix;
 
+    @Value("${file.cleanup.delete-batch-size:100}")
+    private int deleteBatchSize;
+
     @PostConstruct
     public void init() {
         createUploadDirectoryIfNotExists();
         log.info("FileUploadService initialized - uploadPath: '{}', urlPrefix: '{}'", uploadPath, urlPrefix);
     }
 
+    // Uploads are stored under their SHA-256, so re-uploading the same image adds a reference instead of a copy
+    @Transactional
     public String uploadFile(MultipartFile file) throws IOException {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File is empty");
         }
 
-        // Create upload directory if it doesn't exist
-        Path uploadDir = Paths.get(uploadPath);
-        if (!Files.exists(uploadDir)) {
-            Files.createDirectories(uploadDir);
+        StagedFile stagedFile;
+        try (InputStream in = file.getInputStream()) {
+            stagedFile = StagedFile.stage(in, Paths.get(uploadPath));
         }
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = getFileExtension(originalFilename);
-        String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
+        try {
+            String urlPath = storeStagedFile(stagedFile, getFileExtension(file.getOriginalFilename()));
+            log.info("File uploaded: {} -> URL: '{}'", file.getOriginalFilename(), urlPath);
+            return urlPath;
+        } finally {
+            discardStagedFile(stagedFile);
+        }
+    }
 
-        // Save file
-        Path filePath = uploadDir.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), filePath);
+    // Counts the reference in the caller's transaction, then publishes the bytes unless identical content is already stored
+    @Transactional
+    public String storeStagedFile(StagedFile stagedFile, String fileExtension) throws IOException {
+        String filename = storagePath(stagedFile.getContentHash(), fileExtension);
 
-        // Return URL path - trim any whitespace
-        String urlPath = urlPrefix.trim() + "/" + uniqueFilename;
-        log.info("File uploaded: {} -> URL: '{}'", originalFilename, urlPath);
-        return urlPath;
+        addReference(filename, stagedFile);
+
+        // Published before commit; a rollback leaves an unreferenced file for the orphan sweeper
+        Path target = Paths.get(uploadPath).resolve(filename);
+        synchronized (publishLock) {
+            long sequence = publishSequence.incrementAndGet();
+            pendingDeletions.remove(filename);
+            // A release that committed before this upload counted its reference may still queue the file
+            if (releasesInFlight.containsKey(filename)) {
+                lastPublished.put(filename, sequence);
+            } else {
+                lastPublished.remove(filename);
+            }
+            if (Files.exists(target)) {
+                // A fresh modification time keeps the sweeper off content adopted by a still-open transaction
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                log.info("Upload deduplicated: {} bytes -> '{}'", stagedFile.getSize(), filename);
+            } else {
+                // Atomic, so readers never see a partial file
+                Files.createDirectories(target.getParent());
+                Files.move(stagedFile.getPath(), target, StandardCopyOption.ATOMIC_MOVE);
+                log.info("Staged file stored: {} bytes -> '{}'", stagedFile.getSize(), filename);
+            }
+        }
+        return urlPrefix.trim() + "/" + filename;
+    }
+
+    // Insert-or-increment: the first upload of some content inserts its row, every later one bumps the count
+    private void addReference(String filename, StagedFile stagedFile) {
+        for (int attempt = 1; ; attempt++) {
+            // The row lock orders this against a concurrent delete of the same content
+            Optional<UploadedFile> uploadedFile = uploadedFileRepository.findByFilename(filename);
+            if (uploadedFile.isPresent()) {
+                uploadedFile.get().setReferenceCount(uploadedFile.get().getReferenceCount() + 1);
+                return;
+            }
+            if (insertTracking(filename, stagedFile)) {
+                return;
+            }
+            // A concurrent first upload of the same content committed its row meanwhile; count against that one
+            if (attempt == MAX_TRACKING_ATTEMPTS) {
+                throw new IllegalStateException("Could not track upload: " + filename);
+            }
+        }
+    }
+
+    // False when another transaction inserted the row first. The savepoint keeps the duplicate from aborting the
+    // caller's transaction, which PostgreSQL would otherwise do.
+    private boolean insertTracking(String filename, StagedFile stagedFile) {
+        // A release of the same content earlier in this transaction must reach the database first
+        uploadedFileRepository.flush();
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_TRACKING_SQL)) {
+                insert.setString(1, filename);
+                insert.setString(2, stagedFile.getContentHash());
+                insert.setLong(3, stagedFile.getSize());
+                insert.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+                return true;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("insertTracking", INSERT_TRACKING_SQL, e);
+                if (translated instanceof DuplicateKeyException) {
+                    return false;
+                }
+                throw e;
+            }
+        }));
+    }
+
+    public void discardStagedFile(StagedFile stagedFile) {
+        if (stagedFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(stagedFile.getPath());
+        } catch (IOException e) {
+            log.warn("Failed to discard staged file {}: {}", stagedFile.getPath(), e.getMessage());
+        }
     }
 
-    public void deleteFile(String fileUrl) throws IOException {
-        if (fileUrl == null || !fileUrl.startsWith(urlPrefix.trim())) {
+    // Drops one reference in the caller's transaction; the bytes go only with the last one, and only after commit
+    @Transactional
+    public void deleteFile(String fileUrl) {
+        String filename = toFilename(fileUrl);
+        if (filename == null) {
             log.warn("Invalid file URL for deletion: {}", fileUrl);
             return;
         }
 
-        String filename = fileUrl.substring(urlPrefix.trim().length() + 1);
-        Path filePath = Paths.get(uploadPath, filename);
-        
-        if (Files.exists(filePath)) {
-            Files.delete(filePath);
-            log.info("File deleted: {}", filePath);
-        } else {
+        Optional<UploadedFile> uploadedFile = uploadedFileRepository.findByFilename(filename);
+        if (uploadedFile.isPresent()) {
+            UploadedFile tracked = uploadedFile.get();
+            if (tracked.getReferenceCount() > 1) {
+                tracked.setReferenceCount(tracked.getReferenceCount() - 1);
+                log.info("File reference released: {} ({} remaining)", filename, tracked.getReferenceCount());
+                return;
+            }
+            uploadedFileRepository.delete(tracked);
+        }
+
+        // Last reference, or a file stored before reference counting existed; a rollback keeps it
+        releasesInFlight.merge(filename, 1, Integer::sum);
+        long releasedAt = publishSequence.get();
+        TransactionUtils.afterCommit(() -> pendingDeletions.merge(filename, releasedAt, Math::max));
+        TransactionUtils.afterCompletion(() -> finishRelease(filename));
+    }
+
+    private void finishRelease(String filename) {
+        synchronized (publishLock) {
+            releasesInFlight.computeIfPresent(filename, (name, count) -> count > 1 ? count - 1 : null);
+            forgetPublishUnlessNeeded(filename);
+        }
+    }
+
+    private void forgetPublishUnlessNeeded(String filename) {
+        if (!releasesInFlight.containsKey(filename) && !pendingDeletions.containsKey(filename)) {
+            lastPublished.remove(filename);
+        }
+    }
+
+    // Keeps disk I/O off the request threads and out of their transactions
+    @Scheduled(fixedDelayString = "${file.cleanup.delete-interval-ms:1000}")
+    public void processPendingDeletions() {
+        while (!pendingDeletions.isEmpty()) {
+            List<String> batch = new ArrayList<>(deleteBatchSize);
+            Iterator<String> iterator = pendingDeletions.keySet().iterator();
+            while (iterator.hasNext() && batch.size() < deleteBatchSize) {
+                batch.add(iterator.next());
+            }
+
+            // Content that was uploaded again since its release is referenced once more. A re-upload that has not
+            // committed yet is invisible here, but it published after the release and that is caught below.
+            Set<String> adopted = uploadedFileRepository.findAllByFilenameIn(batch).stream()
+                    .map(UploadedFile::getFilename)
+                    .collect(Collectors.toSet());
+
+            for (String filename : batch) {
+                synchronized (publishLock) {
+                    Long releasedAt = pendingDeletions.remove(filename);
+                    if (releasedAt != null && !adopted.contains(filename)
+                            && lastPublished.getOrDefault(filename, 0L) <= releasedAt) {
+                        deleteFromDisk(Paths.get(uploadPath, filename));
+                    }
+                    forgetPublishUnlessNeeded(filename);
+                }
+            }
+        }
+    }
+
+    // Removes a file the sweeper found unreferenced, unless it was published or re-adopted since the cutoff
+    public boolean deleteOrphan(Path file, Instant cutoff) {
+        synchronized (publishLock) {
+            try {
+                if (!Files.isRegularFile(file) || !Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    return false;
+                }
+            } catch (IOException e) {
+                return false;
+            }
+            return deleteFromDisk(file);
+        }
+    }
+
+    private boolean deleteFromDisk(Path filePath) {
+        try {
+            if (Files.deleteIfExists(filePath)) {
+                log.info("File deleted: {}", filePath);
+                return true;
+            }
             log.warn("File not found for deletion: {}", filePath);
+        } catch (IOException e) {
+            // Left for the orphan sweeper to retry
+            log.warn("Failed to delete file {}: {}", filePath, e.getMessage());
+        }
+        return false;
+    }
+
+    // Two hex levels from the content hash (ab/cd/abcd...png) keep every directory small
+    static String storagePath(String contentHash, String fileExtension) {
+        return contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/"
+                + contentHash + fileExtension.toLowerCase(Locale.ROOT);
+    }
+
+    // Where a stored URL lives on disk, or null when the URL is not one of ours
+    public Path resolvePath(String fileUrl) {
+        String filename = toFilename(fileUrl);
+        return filename != null ? Paths.get(uploadPath, filename) : null;
+    }
+
+    private String toFilename(String fileUrl) {
+        String prefix = urlPrefix.trim() + "/";
+        if (fileUrl == null || !fileUrl.startsWith(prefix) || fileUrl.length() == prefix.length()) {
+            return null;
         }
+        return fileUrl.substring(prefix.length());
     }
 
     private void createUploadDirectoryIfNotExists() {
@@ -0,0 +1,297 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.entity.ImageVariant;
+import finemytrip.backend.util.StagedFile;
+import finemytrip.backend.util.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Renders fixed-width copies of uploaded images on a small bounded pool, after the upload has committed
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    private final FileUploadService fileUploadService;
+    private final TransactionTemplate transactionTemplate;
+    private final Path uploadDir;
+    // Widest first, so each variant is scaled down from the previous one instead of the original
+    private final List<Integer> widths;
+    // Larger sources are decoded subsampled, so one upload cannot demand an arbitrarily large bitmap
+    private final long maxSourcePixels;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+
+    public ImageVariantService(FileUploadService fileUploadService,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${file.upload.path}") String uploadPath,
+                               @Value("${image.variants.widths:320,640,1280}") List<Integer> widths,
+                               @Value("${image.variants.threads:2}") int threads,
+                               @Value("${image.variants.queue-capacity:100}") int queueCapacity,
+                               @Value("${image.variants.max-source-pixels:25000000}") long maxSourcePixels) {
+        this.fileUploadService = fileUploadService;
+        this.transactionTemplate = transactionTemplate;
+        this.uploadDir = Paths.get(uploadPath);
+        this.widths = widths.stream()
+                .filter(width -> width > 0)
+                .distinct()
+                .sorted(Comparator.reverseOrder())
+                .toList();
+        this.maxSourcePixels = Math.max(1, maxSourcePixels);
+
+        // Decoding holds a full bitmap per job, so the pool stays small no matter how many cores there are
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.rejectedCounter = Counter.builder("image.variants.rejected")
+                .register(meterRegistry);
+        Gauge.builder("image.variants.queue.size", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    // Once the caller's transaction commits, renders the sources and hands the results to the recorder in a new transaction
+    public void generateAfterCommit(Collection<String> sourceUrls, VariantRecorder recorder) {
+        List<String> sources = sourceUrls.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (sources.isEmpty() || widths.isEmpty()) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> submit(sources, recorder));
+    }
+
+    // Publishes rendered variants whose source is still in use and not already covered; returns the new entries
+    public List<ImageVariant> store(List<RenderedVariant> rendered, Set<String> currentSources,
+                                    List<ImageVariant> existing) throws IOException {
+        List<ImageVariant> added = new ArrayList<>();
+        for (RenderedVariant variant : rendered) {
+            boolean covered = existing.stream().anyMatch(current ->
+                    current.getSourceUrl().equals(variant.sourceUrl()) && current.getWidth() == variant.width());
+            if (!currentSources.contains(variant.sourceUrl()) || covered) {
+                continue;
+            }
+            added.add(ImageVariant.builder()
+                    .sourceUrl(variant.sourceUrl())
+                    .width(variant.width())
+                    .url(fileUploadService.storeStagedFile(variant.file(), variant.extension()))
+                    .build());
+        }
+        return added;
+    }
+
+    // Drops the variants of images the entity no longer uses, releasing their files
+    public void releaseUnused(List<ImageVariant> variants, Set<String> currentSources) {
+        Iterator<ImageVariant> iterator = variants.iterator();
+        while (iterator.hasNext()) {
+            ImageVariant variant = iterator.next();
+            if (!currentSources.contains(variant.getSourceUrl())) {
+                fileUploadService.deleteFile(variant.getUrl());
+                iterator.remove();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void submit(List<String> sources, VariantRecorder recorder) {
+        try {
+            CompletableFuture.supplyAsync(() -> renderAll(sources), executor)
+                    .thenAccept(rendered -> record(rendered, recorder))
+                    .exceptionally(e -> {
+                        log.error("Image variant generation failed for {}: {}", sources, e.getMessage());
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            // Originals stay usable; the entity simply has no variants for these images
+            rejectedCounter.increment();
+            log.warn("Image variant pool saturated, skipping {} - queued: {}", sources, executor.getQueue().size());
+        }
+    }
+
+    private void record(List<RenderedVariant> rendered, VariantRecorder recorder) {
+        try {
+            if (!rendered.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try {
+                        recorder.record(rendered);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } finally {
+            // Stored variants were moved out of staging; this only removes the ones that were not
+            rendered.forEach(variant -> fileUploadService.discardStagedFile(variant.file()));
+        }
+    }
+
+    private List<RenderedVariant> renderAll(List<String> sources) {
+        List<RenderedVariant> rendered = new ArrayList<>();
+        for (String sourceUrl : sources) {
+            Path source = fileUploadService.resolvePath(sourceUrl);
+            if (source == null || !Files.isRegularFile(source)) {
+                log.warn("Image variant source not found: {}", sourceUrl);
+                continue;
+            }
+            rendered.addAll(render(sourceUrl, source));
+        }
+        return rendered;
+    }
+
+    private List<RenderedVariant> render(String sourceUrl, Path source) {
+        List<RenderedVariant> rendered = new ArrayList<>();
+        try {
+            BufferedImage image;
+            String format;
+            try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+                Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+                if (readers == null || !readers.hasNext()) {
+                    log.debug("Skipping image variants for non-image upload: {}", sourceUrl);
+                    return rendered;
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in, true, true);
+                    format = reader.getFormatName().toLowerCase(Locale.ROOT);
+                    image = reader.read(0, readParam(reader, sourceUrl));
+                } finally {
+                    reader.dispose();
+                }
+            }
+
+            // Photos stay JPEG; everything else becomes PNG so transparency survives
+            boolean jpeg = format.equals("jpeg") || format.equals("jpg");
+            String outputFormat = jpeg ? "jpeg" : "png";
+            String extension = jpeg ? ".jpg" : ".png";
+            int imageType = jpeg ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+            BufferedImage base = image;
+            for (int width : widths) {
+                // Never upscale: a source narrower than the variant is already the best copy
+                if (width >= image.getWidth()) {
+                    continue;
+                }
+                int height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+                base = resize(base, width, height, imageType);
+                rendered.add(new RenderedVariant(sourceUrl, width, write(base, outputFormat), extension));
+            }
+            log.info("Rendered {} image variants for {}", rendered.size(), sourceUrl);
+            return rendered;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to render image variants for {}: {}", sourceUrl, e.getMessage());
+            rendered.forEach(variant -> fileUploadService.discardStagedFile(variant.file()));
+            return List.of();
+        }
+    }
+
+    // Dimensions come from the header, before any pixel is decoded; above the cap only every n-th row and column is read
+    private ImageReadParam readParam(ImageReader reader, String sourceUrl) throws IOException {
+        ImageReadParam param = reader.getDefaultReadParam();
+        long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+        if (pixels > maxSourcePixels) {
+            int step = (int) Math.ceil(Math.sqrt((double) pixels / maxSourcePixels));
+            param.setSourceSubsampling(step, step, 0, 0);
+            log.info("Subsampling {} by {} - {}x{} exceeds {} pixels",
+                    sourceUrl, step, reader.getWidth(0), reader.getHeight(0), maxSourcePixels);
+        }
+        return param;
+    }
+
+    // Halving steps keep bilinear filtering from skipping source pixels on large reductions
+    private static BufferedImage resize(BufferedImage image, int width, int height, int imageType) {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(currentWidth / 2, width);
+            currentHeight = Math.max(currentHeight / 2, height);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, imageType);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    // Encodes straight into a staging file, hashing on the way; the memory cache keeps ImageIO off java.io.tmpdir
+    private StagedFile write(BufferedImage image, String format) throws IOException {
+        Path path = StagedFile.createStagingFile(uploadDir);
+        MessageDigest digest = StagedFile.sha256();
+        try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(path)), digest);
+             ImageOutputStream imageOut = new MemoryCacheImageOutputStream(out)) {
+            if (!ImageIO.write(image, format, imageOut)) {
+                throw new IOException("No ImageIO writer for " + format);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return new StagedFile(path, Files.size(path), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    public record RenderedVariant(String sourceUrl, int width, StagedFile file, String extension) {
+    }
+
+    // Applies rendered variants to the owning entity; runs in its own transaction on a pool thread
+    @FunctionalInterface
+    public interface VariantRecorder {
+        void record(List<RenderedVariant> rendered) throws IOException;
+    }
+}
@@ -1,15 +1,28 @@
 package finemytrip.backend.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import finemytrip.backend.dto.ImageVariantDto;
 import finemytrip.backend.dto.MainSlideRequestDto;
 import finemytrip.backend.dto.MainSlideResponseDto;
+import finemytrip.backend.entity.ImageVariant;
 import finemytrip.backend.entity.MainSlide;
 import finemytrip.backend.repository.MainSlideRepository;
+import finemytrip.backend.service.ImageVariantService.RenderedVariant;
+import finemytrip.backend.util.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,31 +30,43 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class MainSlideService {
     
+    private static final Comparator<MainSlideResponseDto> DISPLAY_ORDER = Comparator
+            .comparing(MainSlideResponseDto::getDisplayOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(MainSlideResponseDto::getId);
+    
     private final MainSlideRepository mainSlideRepository;
     private final FileUploadService fileUploadService;
+    private final ObjectMapper objectMapper;
+    private final ImageVariantService imageVariantService;
+
+    // Rebuilt lazily after a slide change commits; reads in between never touch the database
+    private volatile MainSlideSnapshot snapshot;
+    
+    // Recomputed from the snapshot only once the clock passes the next start/end boundary
+    private volatile ActiveSlideWindow activeWindow;
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<MainSlideResponseDto> getAllSlides() {
-        return mainSlideRepository.findAll()
-                .stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+        return getSnapshot().getSlides();
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<MainSlideResponseDto> getActiveSlides() {
-        return mainSlideRepository.findAll()
-                .stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+        return getActiveWindow().getSlides();
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public MainSlideResponseDto getSlideById(Long id) {
-        MainSlide slide = mainSlideRepository.findById(id)
+        return getSnapshot().getSlides()
+                .stream()
+                .filter(slide -> slide.getId().equals(id))
+                .findFirst()
                 .orElseThrow(() -> new RuntimeException("Slide not found. ID: " + id));
-        return convertToResponseDto(slide);
     }
     
     @Transactional
     public MainSlideResponseDto createSlide(MainSlideRequestDto requestDto) throws IOException {
+        validateSchedule(requestDto);
         String imgSrc = null;
         String bgSrc = null;
 
@@ -62,16 +87,23 @@ public class MainSlideService {
                 .bgSrc(bgSrc)
                 .url(requestDto.getUrl() != null ? requestDto.getUrl() : "#")
                 .date(requestDto.getDate())
+                .startAt(requestDto.getStartAt())
+                .endAt(requestDto.getEndAt())
+                .displayOrder(requestDto.getDisplayOrder())
                 .build();
         
         MainSlide savedSlide = mainSlideRepository.save(slide);
+        TransactionUtils.afterCommit(this::invalidateSnapshot);
+        generateImageVariants(savedSlide.getId(), List.of(imgSrc, bgSrc));
         return convertToResponseDto(savedSlide);
     }
     
     @Transactional
     public MainSlideResponseDto updateSlide(Long id, MainSlideRequestDto requestDto) throws IOException {
-        MainSlide slide = mainSlideRepository.findById(id)
+        MainSlide slide = mainSlideRepository.findWithLockById(id)
                 .orElseThrow(() -> new RuntimeException("Slide not found. ID: " + id));
+        validateSchedule(requestDto);
+        List<String> newImageUrls = new ArrayList<>();
         
         // Handle file uploads
         if (requestDto.getImgSrc() != null && !requestDto.getImgSrc().isEmpty()) {
@@ -81,6 +113,7 @@ public class MainSlideService {
             }
             String imgSrc = fileUploadService.uploadFile(requestDto.getImgSrc());
             slide.setImgSrc(imgSrc);
+            newImageUrls.add(imgSrc);
         }
 
         if (requestDto.getBgSrc() != null && !requestDto.getBgSrc().isEmpty()) {
@@ -90,6 +123,7 @@ public class MainSlideService {
             }
             String bgSrc = fileUploadService.uploadFile(requestDto.getBgSrc());
             slide.setBgSrc(bgSrc);
+            newImageUrls.add(bgSrc);
         }
 
         slide.setTitle(requestDto.getTitle());
@@ -97,14 +131,20 @@ public class MainSlideService {
         slide.setImgAlt(requestDto.getImgAlt());
         slide.setUrl(requestDto.getUrl());
         slide.setDate(requestDto.getDate());
+        slide.setStartAt(requestDto.getStartAt());
+        slide.setEndAt(requestDto.getEndAt());
+        slide.setDisplayOrder(requestDto.getDisplayOrder());
+        imageVariantService.releaseUnused(slide.getImageVariants(), imageSources(slide));
         
         MainSlide updatedSlide = mainSlideRepository.save(slide);
+        TransactionUtils.afterCommit(this::invalidateSnapshot);
+        generateImageVariants(id, newImageUrls);
         return convertToResponseDto(updatedSlide);
     }
     
     @Transactional
     public void deleteSlide(Long id) throws IOException {
-        MainSlide slide = mainSlideRepository.findById(id)
+        MainSlide slide = mainSlideRepository.findWithLockById(id)
                 .orElseThrow(() -> new RuntimeException("Slide not found. ID: " + id));
 
         // Delete associated files
@@ -114,8 +154,102 @@ public class MainSlideService {
         if (slide.getBgSrc() != null) {
             fileUploadService.deleteFile(slide.getBgSrc());
         }
+        imageVariantService.releaseUnused(slide.getImageVariants(), Set.of());
 
         mainSlideRepository.deleteById(id);
+        TransactionUtils.afterCommit(this::invalidateSnapshot);
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public MainSlideSnapshot getSnapshot() {
+        MainSlideSnapshot current = snapshot;
+        return current != null ? current : rebuildSnapshot();
+    }
+    
+    // Rebuild and invalidation share the lock, so a rebuild that read stale rows cannot outlive an invalidation
+    private synchronized MainSlideSnapshot rebuildSnapshot() {
+        if (snapshot != null) {
+            return snapshot;
+        }
+        
+        List<MainSlideResponseDto> slides = mainSlideRepository.findAll()
+                .stream()
+                .map(this::convertToResponseDto)
+                .sorted(DISPLAY_ORDER)
+                .collect(Collectors.toList());
+        snapshot = new MainSlideSnapshot(slides, toJson(slides), LocalDateTime.now());
+        return snapshot;
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ActiveSlideWindow getActiveWindow() {
+        MainSlideSnapshot current = getSnapshot();
+        LocalDateTime now = LocalDateTime.now();
+        
+        ActiveSlideWindow window = activeWindow;
+        if (window != null && window.covers(current, now)) {
+            return window;
+        }
+        
+        List<MainSlideResponseDto> active = current.getSlides()
+                .stream()
+                .filter(slide -> slide.getStartAt() == null || !now.isBefore(slide.getStartAt()))
+                .filter(slide -> slide.getEndAt() == null || now.isBefore(slide.getEndAt()))
+                .collect(Collectors.toList());
+        window = new ActiveSlideWindow(current,
+                current.getBoundaries().floor(now),
+                current.getBoundaries().higher(now),
+                active,
+                toJson(active));
+        activeWindow = window;
+        return window;
+    }
+    
+    private byte[] toJson(List<MainSlideResponseDto> slides) {
+        try {
+            return objectMapper.writeValueAsBytes(slides);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize main slides", e);
+        }
+    }
+    
+    private void validateSchedule(MainSlideRequestDto requestDto) {
+        if (requestDto.getStartAt() != null && requestDto.getEndAt() != null
+                && !requestDto.getEndAt().isAfter(requestDto.getStartAt())) {
+            throw new IllegalArgumentException("Slide end time must be after its start time");
+        }
+    }
+    
+    private synchronized void invalidateSnapshot() {
+        snapshot = null;
+    }
+    
+    private void generateImageVariants(Long id, List<String> sourceUrls) {
+        imageVariantService.generateAfterCommit(sourceUrls, rendered -> recordImageVariants(id, rendered));
+    }
+    
+    // Runs on the variant pool once rendering finishes; the slide may have changed or gone in the meantime
+    private void recordImageVariants(Long id, List<RenderedVariant> rendered) throws IOException {
+        Optional<MainSlide> found = mainSlideRepository.findWithLockById(id);
+        if (found.isEmpty()) {
+            return;
+        }
+        
+        MainSlide slide = found.get();
+        List<ImageVariant> added = imageVariantService.store(rendered, imageSources(slide), slide.getImageVariants());
+        if (!added.isEmpty()) {
+            slide.getImageVariants().addAll(added);
+            slide.setUpdatedAt(LocalDateTime.now());
+            TransactionUtils.afterCommit(this::invalidateSnapshot);
+        }
+    }
+    
+    private Set<String> imageSources(MainSlide slide) {
+        Set<String> sources = new HashSet<>();
+        sources.add(slide.getImgSrc());
+        sources.add(slide.getBgSrc());
+        sources.remove(null);
+        return sources;
     }
     
     private MainSlideResponseDto convertToResponseDto(MainSlide slide) {
@@ -126,10 +260,24 @@ public class MainSlideService {
                 .imgSrc(slide.getImgSrc())
                 .imgAlt(slide.getImgAlt())
                 .bgSrc(slide.getBgSrc())
+                .imageVariants(toImageVariantDtos(slide.getImageVariants()))
                 .url(slide.getUrl())
                 .date(slide.getDate())
+                .startAt(slide.getStartAt())
+                .endAt(slide.getEndAt())
+                .displayOrder(slide.getDisplayOrder())
                 .createdAt(slide.getCreatedAt())
                 .updatedAt(slide.getUpdatedAt())
                 .build();
     }
+    
+    private List<ImageVariantDto> toImageVariantDtos(List<ImageVariant> variants) {
+        return variants.stream()
+                .map(variant -> ImageVariantDto.builder()
+                        .sourceUrl(variant.getSourceUrl())
+                        .width(variant.getWidth())
+                        .url(variant.getUrl())
+                        .build())
+                .collect(Collectors.toList());
+    }
 } 
\ No newline at end of file
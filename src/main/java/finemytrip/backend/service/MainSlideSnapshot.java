@@ -0,0 +1,46 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.dto.MainSlideResponseDto;
+import finemytrip.backend.util.EntityTags;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// Immutable view of all slides together with their serialized JSON; callers must not modify the array
+@Getter
+public class MainSlideSnapshot {
+    private final List<MainSlideResponseDto> slides;
+    private final byte[] json;
+    private final String etag;
+    private final long lastModified;
+
+    // Every start/end instant, in time order; the active set only changes at these points
+    private final NavigableSet<LocalDateTime> boundaries;
+
+    // Snapshots are only rebuilt after a change or a restart, so the build time covers deletions, which leave no row behind
+    public MainSlideSnapshot(List<MainSlideResponseDto> slides, byte[] json, LocalDateTime builtAt) {
+        this.slides = List.copyOf(slides);
+        this.json = json;
+        this.etag = EntityTags.of(json);
+
+        TreeSet<LocalDateTime> instants = new TreeSet<>();
+        LocalDateTime latest = builtAt;
+        for (MainSlideResponseDto slide : slides) {
+            if (slide.getUpdatedAt() != null && (latest == null || slide.getUpdatedAt().isAfter(latest))) {
+                latest = slide.getUpdatedAt();
+            }
+            if (slide.getStartAt() != null) {
+                instants.add(slide.getStartAt());
+            }
+            if (slide.getEndAt() != null) {
+                instants.add(slide.getEndAt());
+            }
+        }
+        this.boundaries = Collections.unmodifiableNavigableSet(instants);
+        this.lastModified = EntityTags.toEpochMillis(latest);
+    }
+}
@@ -4,68 +4,140 @@ import finemytrip.backend.dto.LoginResponseDto;
 import finemytrip.backend.dto.MemberLoginRequestDto;
 import finemytrip.backend.dto.MemberRegisterRequestDto;
 import finemytrip.backend.dto.MemberResponseDto;
+import finemytrip.backend.dto.PageResponseDto;
 import finemytrip.backend.entity.Member;
+import finemytrip.backend.exception.DuplicateEmailException;
 import finemytrip.backend.repository.MemberRepository;
 import finemytrip.backend.util.JwtUtil;
+import finemytrip.backend.util.MemberTokenVersions;
+import finemytrip.backend.util.PageCursor;
 import finemytrip.backend.util.TokenBlacklist;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import finemytrip.backend.util.TokenClaims;
+import finemytrip.backend.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @Transactional(readOnly = true)
 public class MemberService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final MemberRepository memberRepository;
     private final JwtUtil jwtUtil;
     private final TokenBlacklist tokenBlacklist;
+    private final MemberTokenVersions memberTokenVersions;
+    private final CustomUserDetailsService userDetailsService;
+    private final PasswordHashingService passwordHashingService;
+    // Database work after hashing continues here, so the small BCrypt pool never waits on a connection
+    private final Executor applicationTaskExecutor;
     
-    @Autowired
-    private PasswordEncoder passwordEncoder;
-    
-    public MemberService(MemberRepository memberRepository, JwtUtil jwtUtil, TokenBlacklist tokenBlacklist) {
+    public MemberService(MemberRepository memberRepository, JwtUtil jwtUtil, TokenBlacklist tokenBlacklist,
+                         MemberTokenVersions memberTokenVersions, CustomUserDetailsService userDetailsService,
+                         PasswordHashingService passwordHashingService,
+                         @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                         Executor applicationTaskExecutor) {
         this.memberRepository = memberRepository;
         this.jwtUtil = jwtUtil;
         this.tokenBlacklist = tokenBlacklist;
+        this.memberTokenVersions = memberTokenVersions;
+        this.userDetailsService = userDetailsService;
+        this.passwordHashingService = passwordHashingService;
+        this.applicationTaskExecutor = applicationTaskExecutor;
     }
 
-    @Transactional
-    public MemberResponseDto register(MemberRegisterRequestDto requestDto) {
-        if (memberRepository.existsByEmail(requestDto.getEmail())) {
-            throw new RuntimeException("Email already exists: " + requestDto.getEmail());
-        }
-
-        Member member = Member.builder()
-                .email(requestDto.getEmail())
-                .password(encodePassword(requestDto.getPassword()))
-                .marketingAgreed(requestDto.getMarketingAgreed())
-                .build();
+    // A single insert guarded by the unique index on email: no pre-check round trip and no check-then-act race.
+    // Hashing completes on the password pool first, so no connection is held while BCrypt runs; the insert runs on
+    // the application executor.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<MemberResponseDto> register(MemberRegisterRequestDto requestDto) {
+        return passwordHashingService.encode(requestDto.getPassword())
+                .thenApplyAsync(encodedPassword -> {
+                    Member member = Member.builder()
+                            .email(requestDto.getEmail())
+                            .password(encodedPassword)
+                            .marketingAgreed(requestDto.getMarketingAgreed())
+                            .build();
+
+                    try {
+                        return convertToResponseDto(memberRepository.save(member));
+                    } catch (DataIntegrityViolationException e) {
+                        if (isDuplicateEmail(e)) {
+                            throw new DuplicateEmailException("Email already exists: " + requestDto.getEmail());
+                        }
+                        throw e;
+                    }
+                }, applicationTaskExecutor);
+    }
 
-        Member savedMember = memberRepository.save(member);
-        return convertToResponseDto(savedMember);
+    // Drivers report the constraint with schema or index decorations, so match on the name rather than equality
+    private static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String constraintName = violation.getConstraintName();
+                return constraintName != null
+                        && constraintName.toLowerCase(Locale.ROOT).contains(Member.EMAIL_CONSTRAINT);
+            }
+        }
+        return false;
     }
 
-    public LoginResponseDto login(MemberLoginRequestDto requestDto) {
+    public CompletableFuture<LoginResponseDto> login(MemberLoginRequestDto requestDto) {
         Member member = memberRepository.findByEmail(requestDto.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found."));
         
-        if (!passwordEncoder.matches(requestDto.getPassword(), member.getPassword())) {
-            throw new RuntimeException("Bad credentials");
-        }
-
-        String token = jwtUtil.generateToken(member.getEmail(), member.getId());
+        // Token issuing looks up the member's token version, so it stays off the hashing pool too
+        return passwordHashingService.matches(requestDto.getPassword(), member.getPassword())
+                .thenApplyAsync(matched -> {
+                    if (!matched) {
+                        throw new RuntimeException("Bad credentials");
+                    }
+                    if (passwordHashingService.needsUpgrade(member.getPassword())) {
+                        upgradePassword(member, requestDto.getPassword());
+                    }
+
+                    String token = jwtUtil.generateToken(member.getEmail(), member.getId());
+
+                    return LoginResponseDto.builder()
+                            .token(token)
+                            .id(member.getId())
+                            .email(member.getEmail())
+                            .marketingAgreed(member.getMarketingAgreed())
+                            .createdAt(member.getCreatedAt())
+                            .updatedAt(member.getUpdatedAt())
+                            .build();
+                }, applicationTaskExecutor);
+    }
 
-        return LoginResponseDto.builder()
-                .token(token)
-                .id(member.getId())
-                .email(member.getEmail())
-                .marketingAgreed(member.getMarketingAgreed())
-                .createdAt(member.getCreatedAt())
-                .updatedAt(member.getUpdatedAt())
-                .build();
+    // Rehash with the current encoder settings without delaying the login response; a failure just retries next login
+    private void upgradePassword(Member member, String rawPassword) {
+        passwordHashingService.encode(rawPassword)
+                .thenAcceptAsync(encodedPassword -> {
+                    if (memberRepository.updatePasswordIfUnchanged(member.getId(), member.getPassword(), encodedPassword) > 0) {
+                        userDetailsService.evict(member.getEmail());
+                        log.info("Password hash upgraded for member ID: {}", member.getId());
+                    }
+                }, applicationTaskExecutor)
+                .exceptionally(e -> {
+                    log.warn("Password hash upgrade skipped for member ID: {} - {}", member.getId(), e.getMessage());
+                    return null;
+                });
     }
 
     public MemberResponseDto getMemberById(Long id) {
@@ -84,8 +156,9 @@ public class MemberService {
         if (token != null && token.startsWith("Bearer ")) {
             String actualToken = token.substring(7);
             
-            if (jwtUtil.validateToken(actualToken) && !jwtUtil.isTokenExpired(actualToken)) {
-                tokenBlacklist.addToBlacklist(actualToken);
+            Optional<TokenClaims> claims = jwtUtil.parseToken(actualToken);
+            if (claims.isPresent()) {
+                tokenBlacklist.addToBlacklist(claims.get());
             } else {
                 throw new RuntimeException("Invalid token.");
             }
@@ -94,10 +167,6 @@ public class MemberService {
         }
     }
 
-    private String encodePassword(String password) {
-        return passwordEncoder.encode(password);
-    }
-
     private MemberResponseDto convertToResponseDto(Member member) {
         return MemberResponseDto.builder()
                 .id(member.getId())
@@ -114,12 +183,45 @@ public class MemberService {
                 .collect(Collectors.toList());
     }
 
+    // Seeks on (createdAt, id), so deep pages cost the same as the first and concurrent sign-ups land after the cursor
+    public PageResponseDto<MemberResponseDto> getMembersPage(String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Member> rows;
+        if (cursor == null) {
+            rows = memberRepository.findAllByOrderByCreatedAtAscIdAsc(limit);
+        } else {
+            String[] parts = PageCursor.decode(cursor, 2);
+            rows = memberRepository.findPageAfter(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]), limit);
+        }
+
+        boolean hasNext = rows.size() > pageSize;
+        List<Member> members = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Member last = members.get(members.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreatedAt().toString(), String.valueOf(last.getId()));
+        }
+
+        return PageResponseDto.<MemberResponseDto>builder()
+                .content(members.stream()
+                        .map(this::convertToResponseDto)
+                        .collect(Collectors.toList()))
+                .size(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     @Transactional
     public void deleteMember(Long id) {
         Member member = memberRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Member not found. ID: " + id));
         
+        memberTokenVersions.revokeAll(member);
         memberRepository.delete(member);
+        TransactionUtils.afterCommit(() -> userDetailsService.evict(member.getEmail()));
     }
 
     @Transactional
@@ -127,6 +229,8 @@ public class MemberService {
         Member member = memberRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Member not found. Email: " + email));
         
+        memberTokenVersions.revokeAll(member);
         memberRepository.delete(member);
+        TransactionUtils.afterCommit(() -> userDetailsService.evict(member.getEmail()));
     }
 }
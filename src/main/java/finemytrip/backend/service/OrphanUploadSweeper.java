@@ -0,0 +1,90 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.util.StagedFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Reconciles the upload directory against the database: removes files nothing refers to, such as those published by a
+// transaction that rolled back, and staging files abandoned by failed requests
+@Slf4j
+@Service
+public class OrphanUploadSweeper {
+
+    private final FileUploadService fileUploadService;
+    private final JdbcTemplate jdbcTemplate;
+    private final Path uploadDir;
+    private final String urlPrefix;
+    // Anything younger may belong to a transaction that has not committed yet
+    private final Duration gracePeriod;
+
+    public OrphanUploadSweeper(FileUploadService fileUploadService,
+                               JdbcTemplate jdbcTemplate,
+                               @Value("${file.upload.path}") String uploadPath,
+                               @Value("${file.upload.url-prefix}") String urlPrefix,
+                               @Value("${file.cleanup.orphan-grace-minutes:60}") long graceMinutes) {
+        this.fileUploadService = fileUploadService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.uploadDir = Paths.get(uploadPath);
+        this.urlPrefix = urlPrefix.trim();
+        this.gracePeriod = Duration.ofMinutes(graceMinutes);
+    }
+
+    @Scheduled(fixedDelayString = "${file.cleanup.sweep-interval-ms:3600000}",
+            initialDelayString = "${file.cleanup.sweep-initial-delay-ms:600000}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(gracePeriod);
+
+        // Read before walking the directory: anything referenced later was published or touched after the cutoff
+        Set<String> referencedUrls = loadReferencedUrls();
+        Set<String> trackedFiles = new HashSet<>(jdbcTemplate.queryForList("select filename from uploaded_files", String.class));
+
+        List<Path> files;
+        try (Stream<Path> entries = Files.walk(uploadDir)) {
+            files = entries.filter(Files::isRegularFile).toList();
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Orphan sweep could not walk {}: {}", uploadDir, e.getMessage());
+            return;
+        }
+
+        int deleted = 0;
+        for (Path file : files) {
+            String relative = uploadDir.relativize(file).toString().replace('\\', '/');
+            if (relative.startsWith(".")) {
+                // Staging files are only ever referenced by the request that wrote them
+                if (!relative.startsWith(StagedFile.STAGING_DIRECTORY + "/")) {
+                    continue;
+                }
+            } else if (referencedUrls.contains(urlPrefix + "/" + relative) || trackedFiles.contains(relative)) {
+                continue;
+            }
+            if (fileUploadService.deleteOrphan(file, cutoff)) {
+                deleted++;
+            }
+        }
+        log.info("Orphan sweep completed - scanned: {}, deleted: {}", files.size(), deleted);
+    }
+
+    private Set<String> loadReferencedUrls() {
+        Set<String> urls = new HashSet<>();
+        for (String[] column : FileUploadService.REFERENCE_COLUMNS) {
+            urls.addAll(jdbcTemplate.queryForList(
+                    "select " + column[1] + " from " + column[0] + " where " + column[1] + " is not null", String.class));
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,50 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.dto.ProductResponseDto;
+import finemytrip.backend.util.BoundedTtlCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Component
+public class ProductCache implements MeterBinder {
+
+    private static final String CATALOG_KEY = "all";
+
+    private final BoundedTtlCache<Long, ProductResponseDto> products;
+    private final BoundedTtlCache<String, ProductCatalogSnapshot> catalog;
+
+    public ProductCache(@Value("${product.cache.max-size:1000}") int maxSize,
+                        @Value("${product.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.products = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+        this.catalog = new BoundedTtlCache<>(1, ttlSeconds * 1000);
+    }
+
+    public ProductResponseDto getProduct(Long id, Function<Long, ProductResponseDto> loader) {
+        return products.get(id, loader);
+    }
+
+    public ProductCatalogSnapshot getCatalog(Supplier<ProductCatalogSnapshot> loader) {
+        return catalog.get(CATALOG_KEY, key -> loader.get());
+    }
+
+    public void evictProduct(Long id) {
+        products.invalidate(id);
+        catalog.invalidateAll();
+    }
+
+    public void evictCatalog() {
+        catalog.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        products.registerMetrics(registry, "products");
+        catalog.registerMetrics(registry, "productCatalog");
+    }
+}
@@ -0,0 +1,32 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.dto.ProductResponseDto;
+import finemytrip.backend.util.EntityTags;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Materialized product list with validators computed once per snapshot
+@Getter
+public class ProductCatalogSnapshot {
+    private final List<ProductResponseDto> products;
+    private final String etag;
+    private final long lastModified;
+
+    // Deletions leave no row behind, so the latest one is passed in to keep Last-Modified moving forward
+    public ProductCatalogSnapshot(List<ProductResponseDto> products, LocalDateTime lastDeletedAt) {
+        this.products = List.copyOf(products);
+
+        StringBuilder versions = new StringBuilder();
+        LocalDateTime latest = lastDeletedAt;
+        for (ProductResponseDto product : products) {
+            versions.append(product.getId()).append(':').append(product.getUpdatedAt()).append(';');
+            if (product.getUpdatedAt() != null && (latest == null || product.getUpdatedAt().isAfter(latest))) {
+                latest = product.getUpdatedAt();
+            }
+        }
+        this.etag = EntityTags.of(versions.toString());
+        this.lastModified = EntityTags.toEpochMillis(latest);
+    }
+}
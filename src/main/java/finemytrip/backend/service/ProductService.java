@@ -1,20 +1,41 @@
 package finemytrip.backend.service;
 
+import finemytrip.backend.dto.ImageVariantDto;
+import finemytrip.backend.dto.PageResponseDto;
+import finemytrip.backend.dto.ProductChangesResponseDto;
 import finemytrip.backend.dto.ProductRequestDto;
 import finemytrip.backend.dto.ProductResponseDto;
+import finemytrip.backend.dto.ProductSearchRequestDto;
+import finemytrip.backend.entity.ImageVariant;
 import finemytrip.backend.entity.Product;
+import finemytrip.backend.entity.ProductTombstone;
 import finemytrip.backend.repository.ProductRepository;
+import finemytrip.backend.repository.ProductSpecifications;
+import finemytrip.backend.repository.ProductTombstoneRepository;
+import finemytrip.backend.service.ImageVariantService.RenderedVariant;
+import finemytrip.backend.util.OffsetPageRequest;
+import finemytrip.backend.util.PageCursor;
+import finemytrip.backend.util.StagedFile;
+import finemytrip.backend.util.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.lang.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,13 +43,196 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 @Slf4j
 public class ProductService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("currPrice", "rating", "sold", "createdAt");
+    private static final String IMAGE_EXTENSION = ".png";
+
     private final ProductRepository productRepository;
+    private final ProductTombstoneRepository productTombstoneRepository;
     private final FileUploadService fileUploadService;
+    private final ProductCache productCache;
+    private final ImageVariantService imageVariantService;
+    private final ChangeCounterService changeCounterService;
+
+    @Value("${product.changes.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
 
+    // Cache hits should not open a transaction
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<ProductResponseDto> getAllProducts() {
-        return productRepository.findAll().stream()
+        return getCatalog().getProducts();
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ProductCatalogSnapshot getCatalog() {
+        return productCache.getCatalog(() -> new ProductCatalogSnapshot(
+                productRepository.findAll().stream()
+                        .map(this::convertToResponseDto)
+                        .collect(Collectors.toList()),
+                productTombstoneRepository.findTopByOrderByDeletedAtDesc()
+                        .map(ProductTombstone::getDeletedAt)
+                        .orElse(null)));
+    }
+
+    // Offset pages report totals; cursor pages seek on (sort key, id) so every page costs the same
+    public PageResponseDto<ProductResponseDto> searchProducts(ProductSearchRequestDto searchDto) {
+        int size = resolvePageSize(searchDto.getSize());
+        Specification<Product> filters = ProductSpecifications.withFilters(searchDto.getTripType(),
+                searchDto.getMinPrice(), searchDto.getMaxPrice(), searchDto.getMinRating());
+
+        if (searchDto.getCursor() != null) {
+            return seekProducts(filters, searchDto.getCursor(), size);
+        }
+
+        String property = resolveSortProperty(searchDto.getSort());
+        Sort.Direction direction = "asc".equalsIgnoreCase(searchDto.getDirection())
+                ? Sort.Direction.ASC
+                : Sort.Direction.DESC;
+        int page = searchDto.getPage() != null ? Math.max(searchDto.getPage(), 0) : 0;
+
+        // Rows with a sort key come first and rows without one follow by id, each paged on its own index
+        Page<Product> keyed = productRepository.findAll(
+                filters.and(ProductSpecifications.hasSortKey(property)),
+                PageRequest.of(page, size, keysetSort(property, direction)));
+        List<Product> products = new ArrayList<>(keyed.getContent());
+        long unkeyedCount;
+        if (products.size() < size) {
+            long unkeyedOffset = Math.max((long) page * size - keyed.getTotalElements(), 0);
+            Page<Product> unkeyed = productRepository.findAll(
+                    filters.and(ProductSpecifications.lacksSortKey(property)),
+                    new OffsetPageRequest(unkeyedOffset, size - products.size(), Sort.by(direction, "id")));
+            products.addAll(unkeyed.getContent());
+            unkeyedCount = unkeyed.getTotalElements();
+        } else {
+            unkeyedCount = productRepository.count(filters.and(ProductSpecifications.lacksSortKey(property)));
+        }
+
+        long totalElements = keyed.getTotalElements() + unkeyedCount;
+        boolean hasNext = (long) (page + 1) * size < totalElements;
+        return PageResponseDto.<ProductResponseDto>builder()
+                .content(products.stream()
+                        .map(this::convertToResponseDto)
+                        .collect(Collectors.toList()))
+                .page(page)
+                .size(size)
+                .totalElements(totalElements)
+                .totalPages((int) ((totalElements + size - 1) / size))
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? encodeCursor(products, property, direction) : null)
+                .build();
+    }
+
+    private PageResponseDto<ProductResponseDto> seekProducts(Specification<Product> filters, String cursor, int size) {
+        String[] parts = PageCursor.decode(cursor, 4);
+        String property = resolveSortProperty(parts[0]);
+        Sort.Direction direction = Sort.Direction.fromString(parts[1]);
+        Comparable<?> sortKey = parseSortKey(property, parts[2]);
+        Long id = Long.valueOf(parts[3]);
+
+        // Fetch one extra row to find out whether another page follows
+        List<Product> rows = new ArrayList<>();
+        if (sortKey != null) {
+            Specification<Product> keyed = filters
+                    .and(ProductSpecifications.hasSortKey(property))
+                    .and(ProductSpecifications.seekAfter(property, sortKey, id, direction));
+            rows.addAll(productRepository.findBy(keyed,
+                    query -> query.sortBy(keysetSort(property, direction)).limit(size + 1).all()));
+        }
+        // Once the rows with a sort key run out, continue through the ones without, by id
+        if (rows.size() <= size) {
+            Specification<Product> unkeyed = filters.and(ProductSpecifications.lacksSortKey(property));
+            if (sortKey == null) {
+                unkeyed = unkeyed.and(ProductSpecifications.seekAfterId(id, direction));
+            }
+            int remaining = size + 1 - rows.size();
+            rows.addAll(productRepository.findBy(unkeyed,
+                    query -> query.sortBy(Sort.by(direction, "id")).limit(remaining).all()));
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<Product> products = hasNext ? rows.subList(0, size) : rows;
+
+        return PageResponseDto.<ProductResponseDto>builder()
+                .content(products.stream()
+                        .map(this::convertToResponseDto)
+                        .collect(Collectors.toList()))
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? encodeCursor(products, property, direction) : null)
+                .build();
+    }
+
+    // Without a watermark the whole catalog is returned as upserts
+    public ProductChangesResponseDto getProductChanges(String since) {
+        // Every version up to the watermark has committed, so nothing below it can still appear
+        long watermark = changeCounterService.current(ChangeCounterService.PRODUCTS);
+        Long from = parseChangeVersion(since);
+        if (from == null || from > watermark) {
+            return fullSync(watermark, since != null);
+        }
+
+        List<ProductResponseDto> upserts = productRepository.findByChangeVersionBetweenOrderByChangeVersionAsc(from + 1, watermark)
+                .stream()
                 .map(this::convertToResponseDto)
                 .collect(Collectors.toList());
+        List<Long> deletedIds = productTombstoneRepository.findByChangeVersionBetweenOrderByChangeVersionAsc(from + 1, watermark)
+                .stream()
+                .map(ProductTombstone::getProductId)
+                .collect(Collectors.toList());
+
+        // Checked last: pruning raises the horizon in the transaction that deletes, so tombstones missing above are caught here
+        if (from < changeCounterService.current(ChangeCounterService.PRODUCT_TOMBSTONE_HORIZON)) {
+            return fullSync(watermark, true);
+        }
+
+        return ProductChangesResponseDto.builder()
+                .upserts(upserts)
+                .deletedIds(deletedIds)
+                .watermark(watermark)
+                .build();
+    }
+
+    // Read from the database rather than the cache, which may predate the watermark
+    private ProductChangesResponseDto fullSync(long watermark, boolean resyncRequired) {
+        return ProductChangesResponseDto.builder()
+                .upserts(productRepository.findAll().stream()
+                        .map(this::convertToResponseDto)
+                        .collect(Collectors.toList()))
+                .deletedIds(List.of())
+                .watermark(watermark)
+                .resyncRequired(resyncRequired)
+                .build();
+    }
+
+    private Long parseChangeVersion(String since) {
+        if (since == null || since.isBlank()) {
+            return null;
+        }
+        try {
+            long version = Long.parseLong(since.trim());
+            return version >= 0 ? version : null;
+        } catch (NumberFormatException e) {
+            // Timestamps handed out by earlier versions of the feed end up here
+            return null;
+        }
+    }
+
+    // Clients that have not polled within the retention period get a full resync instead of the deletes they missed
+    @Scheduled(fixedDelayString = "${product.changes.prune-interval-ms:3600000}")
+    @Transactional
+    public void pruneTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(tombstoneRetentionDays);
+        long horizon = productTombstoneRepository.findTopByDeletedAtBeforeOrderByChangeVersionDesc(cutoff)
+                .map(ProductTombstone::getChangeVersion)
+                .orElse(0L);
+        if (horizon > 0) {
+            changeCounterService.raiseTo(ChangeCounterService.PRODUCT_TOMBSTONE_HORIZON, horizon);
+        }
+        int pruned = productTombstoneRepository.deleteUpTo(horizon, cutoff);
+        if (pruned > 0) {
+            log.info("Pruned {} product tombstones up to version {}", pruned, horizon);
+        }
     }
 
     @Transactional
@@ -37,19 +241,23 @@ public class ProductService {
         String imageUrl = null;
         String introImageUrl = null;
 
-        // Handle Base64 thumbnail upload
-        if (requestDto.getThumbnailSrc() != null && !requestDto.getThumbnailSrc().isEmpty()) {
-            thumbnailUrl = uploadBase64Image(requestDto.getThumbnailSrc());
-        }
+        try {
+            // Handle Base64 thumbnail upload
+            if (requestDto.getThumbnailSrc() != null) {
+                thumbnailUrl = storeImage(requestDto.getThumbnailSrc());
+            }
 
-        // Handle Base64 image upload
-        if (requestDto.getImgSrc() != null && !requestDto.getImgSrc().isEmpty()) {
-            imageUrl = uploadBase64Image(requestDto.getImgSrc());
-        }
+            // Handle Base64 image upload
+            if (requestDto.getImgSrc() != null) {
+                imageUrl = storeImage(requestDto.getImgSrc());
+            }
 
-        // Handle Base64 intro image upload
-        if (requestDto.getIntroImgSrc() != null && !requestDto.getIntroImgSrc().isEmpty()) {
-            introImageUrl = uploadBase64Image(requestDto.getIntroImgSrc());
+            // Handle Base64 intro image upload
+            if (requestDto.getIntroImgSrc() != null) {
+                introImageUrl = storeImage(requestDto.getIntroImgSrc());
+            }
+        } finally {
+            discardStagedImages(requestDto);
         }
 
         Product product = Product.builder()
@@ -66,51 +274,62 @@ public class ProductService {
                 .introTitle(requestDto.getIntroTitle())
                 .introImgSrc(introImageUrl)
                 .introText(requestDto.getIntroText())
+                .changeVersion(changeCounterService.next(ChangeCounterService.PRODUCTS))
                 .build();
 
         Product savedProduct = productRepository.save(product);
+        TransactionUtils.afterCommit(productCache::evictCatalog);
+        generateImageVariants(savedProduct.getId(), List.of(thumbnailUrl, imageUrl, introImageUrl));
         return convertToResponseDto(savedProduct);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ProductResponseDto getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found. ID: " + id));
-        return convertToResponseDto(product);
+        return productCache.getProduct(id, key -> {
+            Product product = productRepository.findWithInfoGroupById(key)
+                    .orElseThrow(() -> new RuntimeException("Product not found. ID: " + key));
+            return convertToResponseDto(product);
+        });
     }
 
     @Transactional
     public ProductResponseDto updateProduct(Long id, ProductRequestDto requestDto) throws IOException {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findWithLockById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found. ID: " + id));
+        List<String> newImageUrls = new ArrayList<>();
 
-        // Handle Base64 thumbnail upload
-        if (requestDto.getThumbnailSrc() != null && !requestDto.getThumbnailSrc().isEmpty()) {
-            // Delete old thumbnail file if exists
-            if (product.getThumbnailSrc() != null) {
-                fileUploadService.deleteFile(product.getThumbnailSrc());
+        try {
+            // Handle Base64 thumbnail upload
+            if (requestDto.getThumbnailSrc() != null) {
+                // Delete old thumbnail file if exists
+                if (product.getThumbnailSrc() != null) {
+                    fileUploadService.deleteFile(product.getThumbnailSrc());
+                }
+                product.setThumbnailSrc(storeImage(requestDto.getThumbnailSrc()));
+                newImageUrls.add(product.getThumbnailSrc());
             }
-            String thumbnailUrl = uploadBase64Image(requestDto.getThumbnailSrc());
-            product.setThumbnailSrc(thumbnailUrl);
-        }
 
-        // Handle Base64 image upload
-        if (requestDto.getImgSrc() != null && !requestDto.getImgSrc().isEmpty()) {
-            // Delete old image file if exists
-            if (product.getImgSrc() != null) {
-                fileUploadService.deleteFile(product.getImgSrc());
+            // Handle Base64 image upload
+            if (requestDto.getImgSrc() != null) {
+                // Delete old image file if exists
+                if (product.getImgSrc() != null) {
+                    fileUploadService.deleteFile(product.getImgSrc());
+                }
+                product.setImgSrc(storeImage(requestDto.getImgSrc()));
+                newImageUrls.add(product.getImgSrc());
             }
-            String imageUrl = uploadBase64Image(requestDto.getImgSrc());
-            product.setImgSrc(imageUrl);
-        }
 
-        // Handle Base64 intro image upload
-        if (requestDto.getIntroImgSrc() != null && !requestDto.getIntroImgSrc().isEmpty()) {
-            // Delete old intro image file if exists
-            if (product.getIntroImgSrc() != null) {
-                fileUploadService.deleteFile(product.getIntroImgSrc());
+            // Handle Base64 intro image upload
+            if (requestDto.getIntroImgSrc() != null) {
+                // Delete old intro image file if exists
+                if (product.getIntroImgSrc() != null) {
+                    fileUploadService.deleteFile(product.getIntroImgSrc());
+                }
+                product.setIntroImgSrc(storeImage(requestDto.getIntroImgSrc()));
+                newImageUrls.add(product.getIntroImgSrc());
             }
-            String introImageUrl = uploadBase64Image(requestDto.getIntroImgSrc());
-            product.setIntroImgSrc(introImageUrl);
+        } finally {
+            discardStagedImages(requestDto);
         }
 
         product.setTripType(requestDto.getTripType());
@@ -123,14 +342,18 @@ public class ProductService {
         product.setSold(requestDto.getSold());
         product.setIntroTitle(requestDto.getIntroTitle());
         product.setIntroText(requestDto.getIntroText());
+        product.setChangeVersion(changeCounterService.next(ChangeCounterService.PRODUCTS));
+        imageVariantService.releaseUnused(product.getImageVariants(), imageSources(product));
 
         Product updatedProduct = productRepository.save(product);
+        TransactionUtils.afterCommit(() -> productCache.evictProduct(id));
+        generateImageVariants(id, newImageUrls);
         return convertToResponseDto(updatedProduct);
     }
 
     @Transactional
     public void deleteProduct(Long id) throws IOException {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findWithLockById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found. ID: " + id));
 
         // Delete associated files
@@ -145,74 +368,106 @@ public class ProductService {
         if (product.getIntroImgSrc() != null) {
             fileUploadService.deleteFile(product.getIntroImgSrc());
         }
+        imageVariantService.releaseUnused(product.getImageVariants(), Set.of());
 
         productRepository.deleteById(id);
+        productTombstoneRepository.save(ProductTombstone.builder()
+                .productId(id)
+                .deletedAt(LocalDateTime.now())
+                .changeVersion(changeCounterService.next(ChangeCounterService.PRODUCTS))
+                .build());
+        TransactionUtils.afterCommit(() -> productCache.evictProduct(id));
     }
 
-    // Method to upload Base64 image to file
-    private String uploadBase64Image(String base64Image) throws IOException {
-        try {
-            // Remove header from Base64 data (e.g. "data:image/png;base64,")
-            String base64Data = base64Image;
-            if (base64Image.contains(",")) {
-                base64Data = base64Image.substring(base64Image.indexOf(",") + 1);
-            }
-            
-            // Base64 Decoding
-            byte[] imageBytes = java.util.Base64.getDecoder().decode(base64Data);
-            
-            // Create File Name
-            String fileName = UUID.randomUUID().toString() + ".png";
-            
-            // Convert to MultipartFile to use existing File Upload Service
-            MultipartFile multipartFile = new MultipartFile() {
-                @Override
-                public @NonNull String getName() {
-                    return "file";
-                }
+    // Images arrive already decoded into staging files by the request deserializer
+    private String storeImage(StagedFile stagedImage) throws IOException {
+        return fileUploadService.storeStagedFile(stagedImage, IMAGE_EXTENSION);
+    }
 
-                @Override
-                public String getOriginalFilename() {
-                    return fileName;
-                }
+    private void generateImageVariants(Long id, List<String> sourceUrls) {
+        imageVariantService.generateAfterCommit(sourceUrls, rendered -> recordImageVariants(id, rendered));
+    }
 
-                @Override
-                public String getContentType() {
-                    return "image/png";
-                }
+    // Runs on the variant pool once rendering finishes; the product may have changed or gone in the meantime
+    private void recordImageVariants(Long id, List<RenderedVariant> rendered) throws IOException {
+        Optional<Product> found = productRepository.findWithLockById(id);
+        if (found.isEmpty()) {
+            return;
+        }
 
-                @Override
-                public boolean isEmpty() {
-                    return imageBytes.length == 0;
-                }
+        Product product = found.get();
+        List<ImageVariant> added = imageVariantService.store(rendered, imageSources(product), product.getImageVariants());
+        if (!added.isEmpty()) {
+            product.getImageVariants().addAll(added);
+            // Bumps updatedAt for ETags and the version for the change feed
+            product.setUpdatedAt(LocalDateTime.now());
+            product.setChangeVersion(changeCounterService.next(ChangeCounterService.PRODUCTS));
+            TransactionUtils.afterCommit(() -> productCache.evictProduct(id));
+        }
+    }
 
-                @Override
-                public long getSize() {
-                    return imageBytes.length;
-                }
+    private Set<String> imageSources(Product product) {
+        Set<String> sources = new HashSet<>();
+        sources.add(product.getThumbnailSrc());
+        sources.add(product.getImgSrc());
+        sources.add(product.getIntroImgSrc());
+        sources.remove(null);
+        return sources;
+    }
 
-                @Override
-                public @NonNull byte[] getBytes() throws IOException {
-                    return imageBytes;
-                }
+    // Anything not published (e.g. after a failure) must not linger in the staging directory
+    private void discardStagedImages(ProductRequestDto requestDto) {
+        fileUploadService.discardStagedFile(requestDto.getThumbnailSrc());
+        fileUploadService.discardStagedFile(requestDto.getImgSrc());
+        fileUploadService.discardStagedFile(requestDto.getIntroImgSrc());
+    }
 
-                @Override
-                public @NonNull java.io.InputStream getInputStream() throws IOException {
-                    return new ByteArrayInputStream(imageBytes);
-                }
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
 
-                @Override
-                public void transferTo(@NonNull java.io.File dest) throws IOException, IllegalStateException {
-                    java.nio.file.Files.write(dest.toPath(), imageBytes);
-                }
-            };
-            
-            return fileUploadService.uploadFile(multipartFile);
-            
-        } catch (Exception e) {
-            log.error("Failed to upload Base64 image: {}", e.getMessage());
-            throw new IOException("Failed to upload Base64 image", e);
+    private String resolveSortProperty(String sort) {
+        String property = sort != null ? sort : "createdAt";
+        if (!SORTABLE_PROPERTIES.contains(property)) {
+            throw new IllegalArgumentException("Unsupported sort property: " + property);
+        }
+        return property;
+    }
+
+    // Always break ties on id so that pages are stable
+    private Sort keysetSort(String property, Sort.Direction direction) {
+        return Sort.by(direction, property).and(Sort.by(direction, "id"));
+    }
+
+    private String encodeCursor(List<Product> products, String property, Sort.Direction direction) {
+        Product last = products.get(products.size() - 1);
+        Object sortKey = getSortKey(last, property);
+        // An empty key marks a position among the rows without one
+        return PageCursor.encode(property, direction.name(),
+                sortKey != null ? String.valueOf(sortKey) : "", String.valueOf(last.getId()));
+    }
+
+    private Object getSortKey(Product product, String property) {
+        return switch (property) {
+            case "currPrice" -> product.getCurrPrice();
+            case "rating" -> product.getRating();
+            case "sold" -> product.getSold();
+            default -> product.getCreatedAt();
+        };
+    }
+
+    private Comparable<?> parseSortKey(String property, String value) {
+        if (value.isEmpty()) {
+            return null;
         }
+        return switch (property) {
+            case "currPrice", "sold" -> Integer.valueOf(value);
+            case "rating" -> Double.valueOf(value);
+            default -> LocalDateTime.parse(value);
+        };
     }
 
     private ProductResponseDto convertToResponseDto(Product product) {
@@ -223,7 +478,7 @@ public class ProductService {
                 .imgSrc(product.getImgSrc())
                 .discountRate(product.getDiscountRate())
                 .title(product.getTitle())
-                .infoGroup(product.getInfoGroup())
+                .infoGroup(product.getInfoGroup() != null ? new ArrayList<>(product.getInfoGroup()) : null)
                 .prevPrice(product.getPrevPrice())
                 .currPrice(product.getCurrPrice())
                 .rating(product.getRating())
@@ -231,8 +486,19 @@ public class ProductService {
                 .introTitle(product.getIntroTitle())
                 .introImgSrc(product.getIntroImgSrc())
                 .introText(product.getIntroText())
+                .imageVariants(toImageVariantDtos(product.getImageVariants()))
                 .createdAt(product.getCreatedAt())
                 .updatedAt(product.getUpdatedAt())
                 .build();
     }
+
+    private List<ImageVariantDto> toImageVariantDtos(List<ImageVariant> variants) {
+        return variants.stream()
+                .map(variant -> ImageVariantDto.builder()
+                        .sourceUrl(variant.getSourceUrl())
+                        .width(variant.getWidth())
+                        .url(variant.getUrl())
+                        .build())
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
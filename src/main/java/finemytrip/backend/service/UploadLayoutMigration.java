@@ -0,0 +1,207 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.entity.UploadedFile;
+import finemytrip.backend.repository.UploadedFileRepository;
+import finemytrip.backend.util.StagedFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// One-off move of files from the flat upload directory into the sharded layout, enabled with file.upload.migrate-layout=true.
+// Runs before the web server starts; every file is published under its new name before any reference moves, so a crash
+// at any point leaves working URLs and a rerun picks up where it stopped.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "file.upload.migrate-layout", havingValue = "true")
+public class UploadLayoutMigration implements SmartInitializingSingleton {
+
+    // Variants remember the URL they were rendered from; not a reference, but it has to follow the file
+    private static final List<String[]> SOURCE_COLUMNS = List.of(
+            new String[]{"product_image_variants", "source_url"},
+            new String[]{"main_slide_image_variants", "source_url"});
+
+    private static final String PRODUCT_OWNS_URL = "thumbnail_src = ? or img_src = ? or intro_img_src = ?"
+            + " or id in (select product_id from product_image_variants where url = ? or source_url = ?)";
+
+    private final UploadedFileRepository uploadedFileRepository;
+    private final ChangeCounterService changeCounterService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path uploadDir;
+    private final String urlPrefix;
+
+    public UploadLayoutMigration(UploadedFileRepository uploadedFileRepository,
+                                 ChangeCounterService changeCounterService,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${file.upload.path}") String uploadPath,
+                                 @Value("${file.upload.url-prefix}") String urlPrefix) {
+        this.uploadedFileRepository = uploadedFileRepository;
+        this.changeCounterService = changeCounterService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.uploadDir = Paths.get(uploadPath);
+        this.urlPrefix = urlPrefix.trim();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<Path> flatFiles;
+        try (Stream<Path> entries = Files.list(uploadDir)) {
+            flatFiles = entries
+                    .filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith("."))
+                    .toList();
+        } catch (IOException e) {
+            log.error("Upload layout migration could not list {}: {}", uploadDir, e.getMessage());
+            return;
+        }
+
+        log.info("=== Upload layout migration: {} flat files in {} ===", flatFiles.size(), uploadDir.toAbsolutePath());
+        int migrated = 0;
+        int failed = 0;
+        for (Path file : flatFiles) {
+            try {
+                migrate(file);
+                migrated++;
+            } catch (IOException | RuntimeException e) {
+                failed++;
+                log.error("Failed to migrate upload {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+        log.info("=== Upload layout migration completed - migrated: {}, failed: {} ===", migrated, failed);
+    }
+
+    private void migrate(Path file) throws IOException {
+        String oldName = file.getFileName().toString();
+        String contentHash = hash(file);
+        String newName = FileUploadService.storagePath(contentHash, extensionOf(oldName));
+        long size = Files.size(file);
+
+        Path target = uploadDir.resolve(newName);
+        if (!Files.exists(target)) {
+            publish(file, target);
+        }
+
+        String oldUrl = urlPrefix + "/" + oldName;
+        String newUrl = urlPrefix + "/" + newName;
+        // URLs and reference counts move together, or not at all
+        int references = transactionTemplate.execute(status -> {
+            int rewritten = rewriteReferences(oldUrl, newUrl);
+            moveTracking(oldName, newName, contentHash, size, rewritten);
+            return rewritten;
+        });
+
+        Files.delete(file);
+        log.info("Upload migrated: '{}' -> '{}' ({} references)", oldName, newName, references);
+    }
+
+    // A hard link costs nothing on the same filesystem; otherwise copy into staging and move into place atomically
+    private void publish(Path file, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, file);
+            return;
+        } catch (UnsupportedOperationException | IOException e) {
+            log.debug("Hard link not possible for {}, copying: {}", file.getFileName(), e.getMessage());
+        }
+
+        Path staged = StagedFile.createStagingFile(uploadDir);
+        try {
+            Files.copy(file, staged, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    private int rewriteReferences(String oldUrl, String newUrl) {
+        // Bump the owners first, while the old URL still identifies them, so ETags and the change feed see the new URLs
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // A file no product refers to must not use up a change feed version
+        Integer productOwners = jdbcTemplate.queryForObject("select count(*) from products where " + PRODUCT_OWNS_URL,
+                Integer.class, oldUrl, oldUrl, oldUrl, oldUrl, oldUrl);
+        if (productOwners != null && productOwners > 0) {
+            jdbcTemplate.update("update products set updated_at = ?, change_version = ? where " + PRODUCT_OWNS_URL,
+                    now, changeCounterService.next(ChangeCounterService.PRODUCTS), oldUrl, oldUrl, oldUrl, oldUrl, oldUrl);
+        }
+        jdbcTemplate.update("update main_slides set updated_at = ? where img_src = ? or bg_src = ?"
+                + " or id in (select main_slide_id from main_slide_image_variants where url = ? or source_url = ?)",
+                now, oldUrl, oldUrl, oldUrl, oldUrl);
+
+        int references = 0;
+        // Each rewritten row is one reference to the file
+        for (String[] column : FileUploadService.REFERENCE_COLUMNS) {
+            references += replaceUrl(column, oldUrl, newUrl);
+        }
+        for (String[] column : SOURCE_COLUMNS) {
+            replaceUrl(column, oldUrl, newUrl);
+        }
+        return references;
+    }
+
+    private int replaceUrl(String[] column, String oldUrl, String newUrl) {
+        return jdbcTemplate.update("update " + column[0] + " set " + column[1] + " = ? where " + column[1] + " = ?",
+                newUrl, oldUrl);
+    }
+
+    // Carries reference counts over to the new name, merging with content that already lives there
+    private void moveTracking(String oldName, String newName, String contentHash, long size, int references) {
+        Optional<UploadedFile> tracked = uploadedFileRepository.findByFilename(oldName);
+        Optional<UploadedFile> existing = uploadedFileRepository.findByFilename(newName);
+
+        if (tracked.isPresent()) {
+            if (existing.isPresent()) {
+                existing.get().setReferenceCount(existing.get().getReferenceCount() + tracked.get().getReferenceCount());
+                uploadedFileRepository.delete(tracked.get());
+            } else {
+                tracked.get().setFilename(newName);
+            }
+        } else if (references > 0) {
+            // Stored before reference counting existed; the rewritten rows are its references
+            if (existing.isPresent()) {
+                existing.get().setReferenceCount(existing.get().getReferenceCount() + references);
+            } else {
+                uploadedFileRepository.save(UploadedFile.builder()
+                        .filename(newName)
+                        .contentHash(contentHash)
+                        .size(size)
+                        .referenceCount(references)
+                        .build());
+            }
+        }
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest = StagedFile.sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String extensionOf(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(dot) : "";
+    }
+}
@@ -0,0 +1,79 @@
+package finemytrip.backend.util;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+
+// Decodes a Base64 string field straight from the parser's input buffer into a staging file,
+// so the encoded text is never materialized. The parser cannot skip a data URI prefix mid-value, so
+// DataUriStrippingInputStream removes it beforehand, from the properties this deserializer is bound to only.
+public class Base64FileDeserializer extends JsonDeserializer<StagedFile> {
+
+    private static final Base64Variant BASE64 = Base64Variants.MIME_NO_LINEFEEDS
+            .withReadPadding(Base64Variant.PaddingReadBehaviour.PADDING_ALLOWED);
+
+    private final Path uploadDir;
+
+    public Base64FileDeserializer(@Value("${file.upload.path}") String uploadPath) {
+        this.uploadDir = Paths.get(uploadPath);
+    }
+
+    // JSON property names of the fields of `type` that are bound through this deserializer
+    public static Set<String> propertiesOf(Class<?> type) {
+        Set<String> properties = new HashSet<>();
+        for (Field field : type.getDeclaredFields()) {
+            JsonDeserialize binding = field.getAnnotation(JsonDeserialize.class);
+            if (binding == null || binding.using() != Base64FileDeserializer.class) {
+                continue;
+            }
+            JsonProperty renamed = field.getAnnotation(JsonProperty.class);
+            properties.add(renamed != null && !renamed.value().isEmpty() ? renamed.value() : field.getName());
+        }
+        return Set.copyOf(properties);
+    }
+
+    @Override
+    public StagedFile deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.hasToken(JsonToken.VALUE_STRING)) {
+            return (StagedFile) context.handleUnexpectedToken(StagedFile.class, parser);
+        }
+
+        Path path = StagedFile.createStagingFile(uploadDir);
+        // Binding or validation may still fail after this field, and then no service ever sees the file
+        StagedFile.trackForRequest(path);
+        MessageDigest digest = StagedFile.sha256();
+        int size;
+        try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(path)), digest)) {
+            size = parser.readBinaryValue(BASE64, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+
+        // An empty string means "no image", as it did before
+        if (size == 0) {
+            Files.deleteIfExists(path);
+            return null;
+        }
+        return new StagedFile(path, size, HexFormat.of().formatHex(digest.digest()));
+    }
+}
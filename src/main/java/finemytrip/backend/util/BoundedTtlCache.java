@@ -0,0 +1,153 @@
+package finemytrip.backend.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// LRU map with a per-entry time-to-live and hit/miss/eviction counters
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long generation;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public BoundedTtlCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    public synchronized V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(key);
+            evictionCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    // The loader runs outside the lock; its result is dropped if an invalidation happened meanwhile
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+        V value = loader.apply(key);
+        if (value != null) {
+            putIfGeneration(key, value, loadGeneration);
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        putIfGeneration(key, value, generation);
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    // Publishes the standard cache.* meters, tagged with the cache name
+    public void registerMetrics(MeterRegistry registry, String cacheName) {
+        Gauge.builder("cache.size", this, BoundedTtlCache::size)
+                .tag("cache", cacheName)
+                .register(registry);
+        FunctionCounter.builder("cache.gets", this, BoundedTtlCache::hitCount)
+                .tag("cache", cacheName)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", this, BoundedTtlCache::missCount)
+                .tag("cache", cacheName)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", this, BoundedTtlCache::evictionCount)
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+
+    private synchronized void putIfGeneration(K key, V value, long expectedGeneration) {
+        if (generation != expectedGeneration) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.put(key, new Entry<>(value, now + ttlNanos));
+        evictOverflow(now);
+    }
+
+    private void evictOverflow(long now) {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        // Drop expired entries first, then the least recently used ones
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && entries.size() > maxSize) {
+            if (iterator.next().getValue().isExpired(now)) {
+                iterator.remove();
+                evictionCount++;
+            }
+        }
+        iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && entries.size() > maxSize) {
+            iterator.next();
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package finemytrip.backend.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+// Removes a leading "data:<type>;base64," from the named string properties of the top-level object while the body
+// streams through, leaving plain Base64 that the parser can decode incrementally. Every other value is untouched.
+public class DataUriStrippingInputStream extends FilterInputStream {
+
+    private static final int MAX_PREFIX_LENGTH = 256;
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final int CHUNK_SIZE = 8192;
+    private static final byte[] DATA_SCHEME = "data:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64_MARKER = ";base64".getBytes(StandardCharsets.US_ASCII);
+
+    private final PushbackInputStream source;
+    private final Set<String> properties;
+    private final byte[] lookahead = new byte[MAX_PREFIX_LENGTH];
+    private final byte[] key = new byte[MAX_KEY_LENGTH];
+    private int keyLength;
+    private boolean inKey;
+    private boolean inString;
+    private boolean escaped;
+    private boolean valueStarted;
+    private int depth;
+    private int previous = -1;
+
+    public DataUriStrippingInputStream(InputStream in, Set<String> properties) {
+        this(new PushbackInputStream(in, CHUNK_SIZE + MAX_PREFIX_LENGTH), properties);
+    }
+
+    private DataUriStrippingInputStream(PushbackInputStream source, Set<String> properties) {
+        super(source);
+        this.source = source;
+        this.properties = properties;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int count = read(single, 0, 1);
+        return count < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    // Reads a chunk and stops right after the opening quote of a named value, so the next read can drop its prefix
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (valueStarted) {
+            valueStarted = false;
+            skipDataUriPrefix();
+        }
+        int count = source.read(buffer, offset, Math.min(length, CHUNK_SIZE));
+        if (count <= 0) {
+            return count;
+        }
+        for (int i = 0; i < count; i++) {
+            int b = buffer[offset + i];
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                    inKey = false;
+                    continue;
+                }
+                if (inKey) {
+                    appendToKey(b);
+                }
+            } else if (b == '"') {
+                inString = true;
+                // Keys and values of nested objects and arrays are never stripped
+                if (depth != 1) {
+                    continue;
+                }
+                if (previous == '{' || previous == ',') {
+                    inKey = true;
+                    keyLength = 0;
+                } else if (previous == ':' && isStrippedProperty()) {
+                    valueStarted = true;
+                    source.unread(buffer, offset + i + 1, count - i - 1);
+                    return i + 1;
+                }
+            } else if (b > ' ') {
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+                previous = b;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] discard = new byte[(int) Math.min(n, CHUNK_SIZE)];
+        long skipped = 0;
+        while (skipped < n) {
+            int count = read(discard, 0, (int) Math.min(n - skipped, discard.length));
+            if (count < 0) {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void appendToKey(int b) {
+        // Longer keys never match a property; the extra length is kept so they cannot match by prefix
+        if (keyLength < MAX_KEY_LENGTH) {
+            key[keyLength] = (byte) b;
+        }
+        keyLength++;
+    }
+
+    private boolean isStrippedProperty() {
+        return keyLength <= MAX_KEY_LENGTH && properties.contains(new String(key, 0, keyLength, StandardCharsets.UTF_8));
+    }
+
+    private void skipDataUriPrefix() throws IOException {
+        int length = 0;
+        while (length < lookahead.length) {
+            int b = source.read();
+            if (b < 0) {
+                break;
+            }
+            lookahead[length++] = (byte) b;
+            if (b == ',' || b == '"' || b == '\\') {
+                break;
+            }
+        }
+        if (!isDataUriPrefix(length)) {
+            source.unread(lookahead, 0, length);
+        }
+    }
+
+    private boolean isDataUriPrefix(int length) {
+        if (length < DATA_SCHEME.length + BASE64_MARKER.length + 1 || lookahead[length - 1] != ',') {
+            return false;
+        }
+        for (int i = 0; i < DATA_SCHEME.length; i++) {
+            if (lookahead[i] != DATA_SCHEME[i]) {
+                return false;
+            }
+        }
+        int markerStart = length - 1 - BASE64_MARKER.length;
+        for (int i = 0; i < BASE64_MARKER.length; i++) {
+            if (lookahead[markerStart + i] != BASE64_MARKER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package finemytrip.backend.util;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Strong validators for conditional GETs
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(byte[] content) {
+        return "\"" + DigestUtils.md5DigestAsHex(content) + "\"";
+    }
+
+    public static String of(String content) {
+        return of(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // An entity changes its updatedAt on every write, so id and updatedAt identify one representation
+    public static String of(Long id, LocalDateTime updatedAt) {
+        return "\"" + id + "-" + (updatedAt != null ? toEpochMillis(updatedAt) : 0) + "-"
+                + (updatedAt != null ? updatedAt.getNano() : 0) + "\"";
+    }
+
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return -1;
+        }
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,163 @@
+package finemytrip.backend.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+
+// Append-only file of fixed-size records: 32-byte SHA-256 digest followed by the expiry in epoch millis.
+// Replay drops expired and torn records and rewrites the file, so it only ever holds live revocations.
+// Appends compact the same way once the file has doubled since the last rewrite, so it stays bounded by live entries.
+@Slf4j
+public class FileRevocationLog implements RevocationLog, Closeable {
+
+    private static final int DIGEST_BYTES = 32;
+    private static final int RECORD_BYTES = DIGEST_BYTES + Long.BYTES;
+    private static final int DEFAULT_MIN_COMPACT_RECORDS = 10000;
+    private static final RevocationListener IGNORE_LIVE = (tokenDigest, expiresAt) -> {
+    };
+
+    private final Path path;
+    private final int minCompactRecords;
+    private FileChannel channel;
+    private long records;
+    private long compactAt;
+
+    public FileRevocationLog(Path path) {
+        this(path, DEFAULT_MIN_COMPACT_RECORDS);
+    }
+
+    public FileRevocationLog(Path path, int minCompactRecords) {
+        if (minCompactRecords < 1) {
+            throw new IllegalArgumentException("Compaction threshold must be positive: " + minCompactRecords);
+        }
+        this.path = path;
+        this.minCompactRecords = minCompactRecords;
+        this.compactAt = minCompactRecords;
+    }
+
+    @Override
+    public synchronized void append(String tokenDigest, long expiresAt) {
+        byte[] digest = Base64.getUrlDecoder().decode(tokenDigest);
+        if (digest.length != DIGEST_BYTES) {
+            throw new IllegalArgumentException("Unexpected token digest length: " + digest.length);
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).put(digest).putLong(expiresAt).flip();
+        try {
+            FileChannel out = openForAppend();
+            while (record.hasRemaining()) {
+                out.write(record);
+            }
+            out.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to revocation log " + path, e);
+        }
+
+        records++;
+        if (records >= compactAt) {
+            closeChannel();
+            try {
+                compact(System.currentTimeMillis(), IGNORE_LIVE);
+            } catch (IOException e) {
+                // The append is already durable; try again once the file has doubled
+                compactAt = 2 * records;
+                log.warn("Failed to compact revocation log {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void replay(long now, RevocationListener listener) {
+        closeChannel();
+        try {
+            if (Files.exists(path)) {
+                compact(now, listener);
+            } else {
+                records = 0;
+                compactAt = minCompactRecords;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay revocation log " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeChannel();
+    }
+
+    private void compact(long now, RevocationListener listener) throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        int live = 0;
+        int dropped = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // A partial trailing record is a write torn by a crash
+            long usable = in.size() - in.size() % RECORD_BYTES;
+            ByteBuffer chunk = ByteBuffer.allocate(RECORD_BYTES * 1024);
+            ByteBuffer kept = ByteBuffer.allocate(chunk.capacity());
+            byte[] digest = new byte[DIGEST_BYTES];
+            long position = 0;
+            while (position < usable) {
+                chunk.clear().limit((int) Math.min(chunk.capacity(), usable - position));
+                while (chunk.hasRemaining() && in.read(chunk, position + chunk.position()) >= 0) {
+                }
+                chunk.flip();
+                position += chunk.remaining();
+                kept.clear();
+                while (chunk.remaining() >= RECORD_BYTES) {
+                    chunk.get(digest);
+                    long expiresAt = chunk.getLong();
+                    if (expiresAt <= now) {
+                        dropped++;
+                        continue;
+                    }
+                    listener.onRevocation(Base64.getUrlEncoder().withoutPadding().encodeToString(digest), expiresAt);
+                    kept.put(digest).putLong(expiresAt);
+                    live++;
+                }
+                kept.flip();
+                while (kept.hasRemaining()) {
+                    out.write(kept);
+                }
+            }
+            out.force(true);
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = live;
+        compactAt = Math.max(minCompactRecords, 2L * live);
+        log.info("Revocation log compacted - live: {}, dropped: {}", live, dropped);
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        if (channel == null) {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close revocation log: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package finemytrip.backend.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Single-JVM stand-in: every subscriber sees every publication, including its own
+public class InProcessRevocationPropagator implements RevocationPropagator {
+
+    private final List<RevocationListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String tokenDigest, long expiresAt) {
+        for (RevocationListener listener : listeners) {
+            listener.onRevocation(tokenDigest, expiresAt);
+        }
+    }
+
+    @Override
+    public void subscribe(RevocationListener listener) {
+        listeners.add(listener);
+    }
+}
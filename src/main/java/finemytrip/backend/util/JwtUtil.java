@@ -2,23 +2,39 @@ package finemytrip.backend.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.Optional;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
     
+    private static final String MEMBER_ID_CLAIM = "memberId";
+    private static final String TOKEN_VERSION_CLAIM = "tokenVersion";
+    
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final MemberTokenVersions memberTokenVersions;
+    
     @Value("${jwt.secret.key}")
     private String secretKey;
     
     @Value("${jwt.expiration.time}")
     private long expirationTime;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+    // Derived once; the parser is immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        parser = Jwts.parser().verifyWith(signingKey).build();
     }
     
     public String generateToken(String email, Long memberId) {
@@ -27,51 +43,39 @@ public class JwtUtil {
         
         return Jwts.builder()
                 .subject(email)
-                .claim("memberId", memberId)
+                .claim(MEMBER_ID_CLAIM, memberId)
+                .claim(TOKEN_VERSION_CLAIM, memberTokenVersions.currentVersion(memberId))
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
-    public String getEmailFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
-    }
-    
-    public Long getMemberIdFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get("memberId", Long.class);
-    }
-    
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+    // Verifies the signature and expiry at most once per token lifetime; empty when the token is not acceptable
+    public Optional<TokenClaims> parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
         }
-    }
-    
-    public boolean isTokenExpired(String token) {
+        
+        String tokenDigest = TokenDigests.sha256(token);
+        TokenClaims cached = verifiedTokenCache.get(tokenDigest);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            
-            return claims.getExpiration().before(new Date());
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+            TokenClaims verified = new TokenClaims(
+                    tokenDigest,
+                    claims.getSubject(),
+                    claims.get(MEMBER_ID_CLAIM, Long.class),
+                    claims.getExpiration(),
+                    tokenVersion != null ? tokenVersion : 0);
+            verifiedTokenCache.put(verified);
+            return Optional.of(verified);
         } catch (JwtException | IllegalArgumentException e) {
-            return true;
+            return Optional.empty();
         }
     }
-} 
\ No newline at end of file
+}
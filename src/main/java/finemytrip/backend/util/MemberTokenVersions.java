@@ -0,0 +1,52 @@
+package finemytrip.backend.util;
+
+import finemytrip.backend.entity.Member;
+import finemytrip.backend.repository.MemberRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+// Per-member token version; bumping it revokes every token issued to the member before that point.
+// The version lives on the member row, so revocations survive restarts and reach every node; the cache only spares
+// the lookup, and its TTL bounds how long another node may still accept a revoked token.
+@Component
+public class MemberTokenVersions implements MeterBinder {
+
+    // A member that no longer exists has no acceptable tokens
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    private final MemberRepository memberRepository;
+    private final BoundedTtlCache<Long, Integer> versions;
+
+    public MemberTokenVersions(MemberRepository memberRepository,
+                               @Value("${jwt.token-versions.cache.max-size:10000}") int maxSize,
+                               @Value("${jwt.token-versions.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.memberRepository = memberRepository;
+        this.versions = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    public int currentVersion(Long memberId) {
+        if (memberId == null) {
+            return 0;
+        }
+        return versions.get(memberId, id -> memberRepository.findTokenVersionById(id).orElse(DELETED));
+    }
+
+    // Must run in the transaction that deletes or locks out the member, so the bump commits with it
+    public void revokeAll(Member member) {
+        int current = member.getTokenVersion() != null ? member.getTokenVersion() : 0;
+        member.setTokenVersion(current + 1);
+        TransactionUtils.afterCommit(() -> versions.invalidate(member.getId()));
+    }
+
+    public boolean isCurrent(TokenClaims claims) {
+        return claims.getTokenVersion() >= currentVersion(claims.getMemberId());
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        versions.registerMetrics(registry, "tokenVersions");
+    }
+}
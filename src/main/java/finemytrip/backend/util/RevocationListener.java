@@ -0,0 +1,7 @@
+package finemytrip.backend.util;
+
+@FunctionalInterface
+public interface RevocationListener {
+
+    void onRevocation(String tokenDigest, long expiresAt);
+}
@@ -0,0 +1,20 @@
+package finemytrip.backend.util;
+
+// Durable record of revocations so a restarted node still rejects logged-out tokens
+public interface RevocationLog {
+
+    RevocationLog NONE = new RevocationLog() {
+        @Override
+        public void append(String tokenDigest, long expiresAt) {
+        }
+
+        @Override
+        public void replay(long now, RevocationListener listener) {
+        }
+    };
+
+    void append(String tokenDigest, long expiresAt);
+
+    // Hands every revocation still live at `now` to the listener
+    void replay(long now, RevocationListener listener);
+}
@@ -0,0 +1,9 @@
+package finemytrip.backend.util;
+
+// Fans revocations out to the other nodes; implementations may echo a node's own publications back to it
+public interface RevocationPropagator {
+
+    void publish(String tokenDigest, long expiresAt);
+
+    void subscribe(RevocationListener listener);
+}
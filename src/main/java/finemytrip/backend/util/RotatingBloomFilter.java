@@ -0,0 +1,110 @@
+package finemytrip.backend.util;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom filter split into expiry-bucketed slices. A slice is wiped as soon as every token
+// recorded in it has expired, so memory stays bounded no matter how many logouts happen.
+public class RotatingBloomFilter {
+
+    private final Slice[] slices;
+    private final long bucketMillis;
+    private final int bitCount;
+    private final int hashCount;
+
+    public RotatingBloomFilter(int sliceCount, long bucketMillis, int expectedPerSlice, double falsePositiveRate) {
+        if (sliceCount < 2 || bucketMillis <= 0 || expectedPerSlice <= 0
+                || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid bloom filter settings");
+        }
+        double bits = -expectedPerSlice * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, (long) Math.ceil(bits)));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedPerSlice * Math.log(2)));
+        this.bucketMillis = bucketMillis;
+        this.slices = new Slice[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new Slice((bitCount + 63) / 64);
+        }
+    }
+
+    // Writes are rare (one per logout), so they are serialized against rotation
+    public synchronized void put(String tokenDigest, long expiresAt) {
+        long bucket = expiresAt / bucketMillis;
+        Slice slice = slices[(int) Math.floorMod(bucket, (long) slices.length)];
+        // Sharing a slot with a different bucket is safe as long as the slice outlives both
+        slice.bucket = Math.max(slice.bucket, bucket);
+
+        ByteBuffer hashes = hashes(tokenDigest);
+        long h1 = hashes.getLong(0);
+        long h2 = hashes.getLong(8) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(h1, h2, i);
+            long mask = 1L << bit;
+            slice.bits.getAndAccumulate(bit >>> 6, mask, (current, m) -> current | m);
+        }
+    }
+
+    // Lock-free; a false result means the digest was never put or has already expired
+    public boolean mightContain(String tokenDigest) {
+        ByteBuffer hashes = hashes(tokenDigest);
+        long h1 = hashes.getLong(0);
+        long h2 = hashes.getLong(8) | 1L;
+        for (Slice slice : slices) {
+            if (slice.bucket != Long.MIN_VALUE && slice.containsAll(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void rotate(long now) {
+        long currentBucket = now / bucketMillis;
+        for (Slice slice : slices) {
+            // Entries in bucket b expire no later than (b + 1) * bucketMillis
+            if (slice.bucket != Long.MIN_VALUE && slice.bucket < currentBucket) {
+                slice.bucket = Long.MIN_VALUE;
+                slice.clear();
+            }
+        }
+    }
+
+    public long sizeInBytes() {
+        return (long) slices.length * ((bitCount + 63) / 64) * Long.BYTES;
+    }
+
+    private int index(long h1, long h2, int i) {
+        return (int) Math.floorMod(h1 + i * h2, (long) bitCount);
+    }
+
+    // The digest is already a uniformly distributed SHA-256, so its bytes serve as the hashes
+    private static ByteBuffer hashes(String tokenDigest) {
+        return ByteBuffer.wrap(Base64.getUrlDecoder().decode(tokenDigest));
+    }
+
+    private final class Slice {
+
+        private final AtomicLongArray bits;
+        private volatile long bucket = Long.MIN_VALUE;
+
+        private Slice(int words) {
+            this.bits = new AtomicLongArray(words);
+        }
+
+        private boolean containsAll(long h1, long h2) {
+            for (int i = 0; i < hashCount; i++) {
+                int bit = index(h1, h2, i);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void clear() {
+            for (int i = 0; i < bits.length(); i++) {
+                bits.set(i, 0L);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package finemytrip.backend.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Method + path trie compiled once from Spring-style patterns. Supports literal segments,
+// "{name}" for any single segment, "{name:\d+}" for an all-digit segment and a trailing "**" for any remainder
+// (including none).
+public final class RouteMatcher {
+
+    private static final String ANY_METHOD = "*";
+    private static final String DIGITS_CONSTRAINT = ":\\d+}";
+
+    private final Map<String, Node> roots = new HashMap<>();
+
+    private RouteMatcher() {
+    }
+
+    public static RouteMatcher compile(List<Route> routes) {
+        RouteMatcher matcher = new RouteMatcher();
+        for (Route route : routes) {
+            String method = route.method() == null ? ANY_METHOD : route.method();
+            Node node = matcher.roots.computeIfAbsent(method, key -> new Node());
+            for (String segment : route.pattern().split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (segment.equals("**")) {
+                    node.matchesRemainder = true;
+                    node = null;
+                    break;
+                }
+                node = !segment.startsWith("{") ? node.literal(segment)
+                        : segment.endsWith(DIGITS_CONSTRAINT) ? node.digitsVariable()
+                        : node.variable(segment);
+            }
+            if (node != null) {
+                node.terminal = true;
+            }
+        }
+        return matcher;
+    }
+
+    public boolean matches(String method, String path) {
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return false;
+        }
+        Node methodRoot = roots.get(method);
+        Node anyRoot = roots.get(ANY_METHOD);
+        return (methodRoot != null && match(methodRoot, path, 1))
+                || (anyRoot != null && match(anyRoot, path, 1));
+    }
+
+    // Walks segments in place with regionMatches so a lookup allocates nothing
+    private static boolean match(Node node, String path, int start) {
+        if (node.matchesRemainder) {
+            return true;
+        }
+        if (start >= path.length()) {
+            return node.terminal;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        int length = end - start;
+        int next = end + 1;
+        for (int i = 0; i < node.literals.size(); i++) {
+            String literal = node.literals.get(i);
+            if (literal.length() == length && path.regionMatches(start, literal, 0, length)
+                    && matchNext(node.literalNodes.get(i), path, end, next)) {
+                return true;
+            }
+        }
+        if (node.digitsVariable != null && length > 0 && isDigits(path, start, end)
+                && matchNext(node.digitsVariable, path, end, next)) {
+            return true;
+        }
+        return node.variable != null && length > 0 && matchNext(node.variable, path, end, next);
+    }
+
+    private static boolean isDigits(String path, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchNext(Node child, String path, int end, int next) {
+        if (end == path.length()) {
+            return child.terminal || child.matchesRemainder;
+        }
+        // A trailing slash leaves an empty segment that nothing but "**" accepts
+        return next < path.length() ? match(child, path, next) : child.matchesRemainder;
+    }
+
+    // A null method matches every method
+    public record Route(String method, String pattern) {
+    }
+
+    private static final class Node {
+
+        private final List<String> literals = new ArrayList<>();
+        private final List<Node> literalNodes = new ArrayList<>();
+        private Node variable;
+        private Node digitsVariable;
+        private boolean terminal;
+        private boolean matchesRemainder;
+
+        private Node literal(String segment) {
+            int index = literals.indexOf(segment);
+            if (index >= 0) {
+                return literalNodes.get(index);
+            }
+            Node child = new Node();
+            literals.add(segment);
+            literalNodes.add(child);
+            return child;
+        }
+
+        private Node variable(String segment) {
+            // Other regex constraints would silently match more than the pattern says
+            if (!segment.endsWith("}") || segment.indexOf(':') >= 0) {
+                throw new IllegalArgumentException("Unsupported path segment: " + segment);
+            }
+            if (variable == null) {
+                variable = new Node();
+            }
+            return variable;
+        }
+
+        private Node digitsVariable() {
+            if (digitsVariable == null) {
+                digitsVariable = new Node();
+            }
+            return digitsVariable;
+        }
+    }
+}
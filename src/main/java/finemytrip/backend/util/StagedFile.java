@@ -0,0 +1,78 @@
+package finemytrip.backend.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+// Upload bytes already written to disk but not yet published under the upload directory
+@Getter
+@AllArgsConstructor
+public class StagedFile {
+
+    // Kept inside the upload directory so publishing is a same-filesystem atomic move
+    public static final String STAGING_DIRECTORY = ".tmp";
+
+    // Request attribute listing the staging files written while handling the request; see StagedFileCleanupFilter
+    public static final String REQUEST_ATTRIBUTE = StagedFile.class.getName() + ".PATHS";
+
+    private final Path path;
+    private final long size;
+    // Hex SHA-256 of the bytes, computed while they were written
+    private final String contentHash;
+
+    // Copies the stream into a staging file, hashing it on the way
+    public static StagedFile stage(InputStream in, Path uploadDir) throws IOException {
+        Path path = createStagingFile(uploadDir);
+        MessageDigest digest = sha256();
+        long size;
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(path), digest)) {
+            size = in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return new StagedFile(path, size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    // Hands the file to the current request for removal at its end, in case nothing publishes or discards it first
+    public static void trackForRequest(Path path) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Path> paths = (List<Path>) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (paths == null) {
+            paths = new ArrayList<>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, paths, RequestAttributes.SCOPE_REQUEST);
+        }
+        paths.add(path);
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static Path createStagingFile(Path uploadDir) throws IOException {
+        Path stagingDir = uploadDir.resolve(STAGING_DIRECTORY);
+        Files.createDirectories(stagingDir);
+        return Files.createTempFile(stagingDir, "upload-", ".part");
+    }
+}
@@ -1,26 +1,125 @@
 package finemytrip.backend.util;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.io.UncheckedIOException;
+import java.util.Comparator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.PriorityBlockingQueue;
 
+@Slf4j
 @Component
-public class TokenBlacklist {
+public class TokenBlacklist implements MeterBinder {
     
+    // Token digest -> the token's own expiry; an entry is useless once the token expires by itself
     private final ConcurrentMap<String, Long> blacklistedTokens = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Revocation> expiryQueue =
+            new PriorityBlockingQueue<>(64, Comparator.comparingLong(Revocation::expiresAt));
     
-    public void addToBlacklist(String token) {
-        blacklistedTokens.put(token, System.currentTimeMillis());
+    // Almost every lookup is a miss; the filter answers those without probing the map
+    private final RotatingBloomFilter revocationFilter;
+    private final RevocationLog revocationLog;
+    private final RevocationPropagator revocationPropagator;
+    
+    public TokenBlacklist(RevocationLog revocationLog,
+                          RevocationPropagator revocationPropagator,
+                          @Value("${jwt.expiration.time}") long expirationTime,
+                          @Value("${jwt.blacklist.bloom.slices:8}") int slices,
+                          @Value("${jwt.blacklist.bloom.expected-per-slice:200000}") int expectedPerSlice,
+                          @Value("${jwt.blacklist.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        long bucketMillis = Math.max(1000, (expirationTime + slices - 2) / Math.max(1, slices - 1));
+        this.revocationFilter = new RotatingBloomFilter(slices, bucketMillis, expectedPerSlice, falsePositiveRate);
+        this.revocationLog = revocationLog;
+        this.revocationPropagator = revocationPropagator;
+    }
+    
+    @PostConstruct
+    public void init() {
+        revocationLog.replay(System.currentTimeMillis(), this::remember);
+        revocationPropagator.subscribe(this::onRemoteRevocation);
+        log.info("TokenBlacklist initialized - revoked tokens: {}", size());
+    }
+    
+    public void addToBlacklist(TokenClaims claims) {
+        addToBlacklist(claims.getTokenDigest(), claims.getExpiration().getTime());
+    }
+    
+    public void addToBlacklist(String tokenDigest, long expiresAt) {
+        if (remember(tokenDigest, expiresAt)) {
+            persist(tokenDigest, expiresAt);
+            revocationPropagator.publish(tokenDigest, expiresAt);
+        }
+    }
+    
+    // Other nodes' revocations are kept durably too, but not published again
+    private void onRemoteRevocation(String tokenDigest, long expiresAt) {
+        if (remember(tokenDigest, expiresAt)) {
+            persist(tokenDigest, expiresAt);
+        }
+    }
+    
+    private boolean remember(String tokenDigest, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return false;
+        }
+        revocationFilter.put(tokenDigest, expiresAt);
+        if (blacklistedTokens.putIfAbsent(tokenDigest, expiresAt) == null) {
+            expiryQueue.add(new Revocation(tokenDigest, expiresAt));
+            return true;
+        }
+        return false;
+    }
+    
+    private void persist(String tokenDigest, long expiresAt) {
+        try {
+            revocationLog.append(tokenDigest, expiresAt);
+        } catch (UncheckedIOException e) {
+            // The in-memory revocation still holds until restart
+            log.error("Failed to persist token revocation: {}", e.getMessage());
+        }
     }
     
     public boolean isBlacklisted(String token) {
-        return blacklistedTokens.containsKey(token);
+        return isDigestBlacklisted(TokenDigests.sha256(token));
+    }
+    
+    public boolean isDigestBlacklisted(String tokenDigest) {
+        return revocationFilter.mightContain(tokenDigest) && blacklistedTokens.containsKey(tokenDigest);
+    }
+    
+    public int size() {
+        return blacklistedTokens.size();
     }
     
+    // Only pops entries from the head of the expiry queue, so each run costs as much as there is to evict
+    @Scheduled(fixedDelayString = "${jwt.blacklist.cleanup-interval-ms:60000}")
     public void cleanupExpiredTokens() {
         long currentTime = System.currentTimeMillis();
-        blacklistedTokens.entrySet().removeIf(entry -> 
-            currentTime - entry.getValue() > 86400000);
+        Revocation head;
+        while ((head = expiryQueue.peek()) != null && head.expiresAt() <= currentTime) {
+            expiryQueue.poll();
+            blacklistedTokens.remove(head.tokenDigest(), head.expiresAt());
+        }
+        revocationFilter.rotate(currentTime);
+    }
+    
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("jwt.blacklist.size", this, TokenBlacklist::size)
+                .register(registry);
+        Gauge.builder("jwt.blacklist.filter.bytes", revocationFilter, RotatingBloomFilter::sizeInBytes)
+                .register(registry);
+    }
+    
+    private record Revocation(String tokenDigest, long expiresAt) {
     }
-} 
\ No newline at end of file
+}
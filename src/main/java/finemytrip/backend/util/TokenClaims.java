@@ -0,0 +1,17 @@
+package finemytrip.backend.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+// Claims of a token whose signature and expiry have already been verified
+@Getter
+@AllArgsConstructor
+public class TokenClaims {
+    private final String tokenDigest;
+    private final String subject;
+    private final Long memberId;
+    private final Date expiration;
+    private final int tokenVersion;
+}
@@ -0,0 +1,105 @@
+package finemytrip.backend.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Claims of tokens that already passed signature verification, keyed by token digest until the token expires
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private final ConcurrentMap<String, TokenClaims> entries = new ConcurrentHashMap<>();
+    // Soonest expiry first, so making room only ever touches the head; guarded by itself, lookups never take it
+    private final PriorityQueue<TokenClaims> expiryQueue =
+            new PriorityQueue<>(Comparator.comparingLong(claims -> claims.getExpiration().getTime()));
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${jwt.verified-cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public TokenClaims get(String tokenDigest) {
+        TokenClaims claims = entries.get(tokenDigest);
+        if (claims == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(claims, System.currentTimeMillis())) {
+            entries.remove(tokenDigest, claims);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return claims;
+    }
+
+    public void put(TokenClaims claims) {
+        if (isExpired(claims, System.currentTimeMillis())) {
+            return;
+        }
+        synchronized (expiryQueue) {
+            makeRoom();
+            expiryQueue.add(claims);
+            entries.put(claims.getTokenDigest(), claims);
+        }
+    }
+
+    public void invalidate(String tokenDigest) {
+        entries.remove(tokenDigest);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("jwt.verified.cache.size", this, VerifiedTokenCache::size)
+                .register(registry);
+        Gauge.builder("jwt.verified.cache.hit.ratio", this, VerifiedTokenCache::hitRatio)
+                .register(registry);
+        FunctionCounter.builder("jwt.verified.cache.gets", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("jwt.verified.cache.gets", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    // Pops expired tokens, then the ones closest to expiry while full; each eviction costs O(log n)
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        // Invalidated and replaced tokens leave their queue entries behind; dropping them once the queue holds twice
+        // as many entries as the cache keeps the rebuild amortized over at least maxSize puts
+        if (expiryQueue.size() >= 2 * Math.max(maxSize, 1)) {
+            expiryQueue.removeIf(claims -> entries.get(claims.getTokenDigest()) != claims);
+        }
+        TokenClaims head;
+        while ((head = expiryQueue.peek()) != null && (isExpired(head, now) || entries.size() >= maxSize)) {
+            expiryQueue.poll();
+            entries.remove(head.getTokenDigest(), head);
+        }
+    }
+
+    private boolean isExpired(TokenClaims claims, long now) {
+        return claims.getExpiration() == null || claims.getExpiration().getTime() <= now;
+    }
+}
@@ -0,0 +1,66 @@
+package finemytrip.backend.config;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtAuthenticationFilterTest {
+
+	// Public routes never reach the token dependencies, so they can be left out here
+	private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(null, null, null, null);
+
+	@Test
+	void publicRoutesFollowSecurityConfig() {
+		assertThat(PublicRoutes.MATCHER.matches("GET", "/")).isTrue();
+		assertThat(PublicRoutes.MATCHER.matches("GET", "/api/products/42")).isTrue();
+		assertThat(PublicRoutes.MATCHER.matches("GET", "/api/products/changes")).isTrue();
+		assertThat(PublicRoutes.MATCHER.matches("GET", "/api/main-slides/active")).isTrue();
+		assertThat(PublicRoutes.MATCHER.matches("GET", "/api/members/email/user@example.com")).isTrue();
+		assertThat(PublicRoutes.MATCHER.matches("DELETE", "/uploads/a.png")).isTrue();
+		assertThat(PublicRoutes.MATCHER.matches("POST", "/api/members/login")).isTrue();
+
+		assertThat(PublicRoutes.MATCHER.matches("POST", "/api/products")).isFalse();
+		assertThat(PublicRoutes.MATCHER.matches("DELETE", "/api/products/42")).isFalse();
+		assertThat(PublicRoutes.MATCHER.matches("GET", "/api/products/42/images")).isFalse();
+		assertThat(PublicRoutes.MATCHER.matches("POST", "/api/members/logout")).isFalse();
+		assertThat(PublicRoutes.MATCHER.matches("GET", "/api/main-slides/admin")).isFalse();
+		assertThat(PublicRoutes.MATCHER.matches("GET", "/api/products/abc")).isFalse();
+	}
+
+	@Test
+	void publicRequestPassesThrough() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/products/1"), response, chain);
+
+		assertThat(chain.getRequest()).isNotNull();
+		assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+	}
+
+	@Test
+	void protectedRequestWithoutTokenIsRejected() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(new MockHttpServletRequest("POST", "/api/products"), response, chain);
+
+		assertThat(chain.getRequest()).isNull();
+		assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_FORBIDDEN);
+	}
+
+	@Test
+	void adminSlideListingWithoutTokenIsRejected() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/main-slides/admin"), response, chain);
+
+		assertThat(chain.getRequest()).isNull();
+		assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_FORBIDDEN);
+	}
+}
@@ -0,0 +1,79 @@
+package finemytrip.backend.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UploadControllerTest {
+
+	private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+	@TempDir
+	Path uploadDir;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		Files.writeString(uploadDir.resolve(HASH + ".png"), "0123456789");
+		Files.createDirectories(uploadDir.resolve(".tmp"));
+		Files.writeString(uploadDir.resolve(".tmp/upload-1.part"), "partial");
+		mockMvc = MockMvcBuilders.standaloneSetup(new UploadController(uploadDir.toString())).build();
+	}
+
+	@Test
+	void servesFileAsImmutableWithStrongEtag() throws Exception {
+		mockMvc.perform(get("/uploads/" + HASH + ".png"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+				.andExpect(content().bytes("0123456789".getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	@Test
+	void answersRevalidationWithNotModified() throws Exception {
+		mockMvc.perform(get("/uploads/" + HASH + ".png").header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\""))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void servesSingleByteRange() throws Exception {
+		mockMvc.perform(get("/uploads/" + HASH + ".png").header(HttpHeaders.RANGE, "bytes=2-5"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+				.andExpect(content().bytes("2345".getBytes(StandardCharsets.US_ASCII)));
+
+		mockMvc.perform(get("/uploads/" + HASH + ".png").header(HttpHeaders.RANGE, "bytes=20-"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+	}
+
+	@Test
+	void headReturnsHeadersOnly() throws Exception {
+		mockMvc.perform(head("/uploads/" + HASH + ".png"))
+				.andExpect(status().isOk())
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+				.andExpect(content().bytes(new byte[0]));
+	}
+
+	@Test
+	void hidesStagingFilesAndPathsOutsideUploads() throws Exception {
+		mockMvc.perform(get("/uploads/.tmp/upload-1.part")).andExpect(status().isNotFound());
+		mockMvc.perform(get("/uploads/%2e%2e/secret")).andExpect(status().isNotFound());
+		mockMvc.perform(get("/uploads/missing.png")).andExpect(status().isNotFound());
+	}
+}
@@ -0,0 +1,108 @@
+package finemytrip.backend.repository;
+
+import finemytrip.backend.entity.Product;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ProductRepositoryTest {
+
+	private static final int PRODUCT_COUNT = 500;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		List<Product> products = new ArrayList<>();
+		for (int i = 0; i < PRODUCT_COUNT; i++) {
+			products.add(Product.builder()
+					.title("Product " + i)
+					.tripType(i % 2 == 0 ? "domestic" : "overseas")
+					.currPrice(10000 + i)
+					.rating(i % 5 == 0 ? null : 4.0 + (i % 10) / 10.0)
+					.sold(i)
+					.infoGroup(new ArrayList<>(List.of("info " + i + "-1", "info " + i + "-2", "info " + i + "-3")))
+					.build());
+		}
+		productRepository.saveAll(products);
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void findAllLoadsInfoGroupsWithTheProducts() {
+		List<Product> products = productRepository.findAll();
+		int infoCount = products.stream().mapToInt(product -> product.getInfoGroup().size()).sum();
+
+		assertThat(products).hasSize(PRODUCT_COUNT);
+		assertThat(infoCount).isEqualTo(PRODUCT_COUNT * 3);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void pagedListingBatchesInfoGroupLoads() {
+		Page<Product> page = productRepository.findAll(
+				ProductSpecifications.withFilters(null, null, null, null),
+				PageRequest.of(0, 100, Sort.by("id")));
+		int infoCount = page.getContent().stream().mapToInt(product -> product.getInfoGroup().size()).sum();
+
+		// Page select, count select and one batched info group select, independent of the page size
+		assertThat(infoCount).isEqualTo(100 * 3);
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	void seekingByASparseSortKeyVisitsEveryProduct() {
+		Sort keyset = Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id"));
+		Set<Long> seen = new HashSet<>();
+
+		List<Product> page = productRepository.findBy(ProductSpecifications.hasSortKey("rating"),
+				query -> query.sortBy(keyset).limit(64).all());
+		while (!page.isEmpty()) {
+			page.forEach(product -> assertThat(seen.add(product.getId())).isTrue());
+			Product last = page.get(page.size() - 1);
+			page = productRepository.findBy(
+					ProductSpecifications.hasSortKey("rating")
+							.and(ProductSpecifications.seekAfter("rating", last.getRating(), last.getId(), Sort.Direction.DESC)),
+					query -> query.sortBy(keyset).limit(64).all());
+		}
+		assertThat(seen).hasSize(PRODUCT_COUNT - PRODUCT_COUNT / 5);
+
+		// Products without a rating are paged separately, on id alone
+		page = productRepository.findBy(ProductSpecifications.lacksSortKey("rating"),
+				query -> query.sortBy(Sort.by(Sort.Direction.DESC, "id")).limit(64).all());
+		while (!page.isEmpty()) {
+			page.forEach(product -> assertThat(seen.add(product.getId())).isTrue());
+			Product last = page.get(page.size() - 1);
+			page = productRepository.findBy(
+					ProductSpecifications.lacksSortKey("rating")
+							.and(ProductSpecifications.seekAfterId(last.getId(), Sort.Direction.DESC)),
+					query -> query.sortBy(Sort.by(Sort.Direction.DESC, "id")).limit(64).all());
+		}
+		assertThat(seen).hasSize(PRODUCT_COUNT);
+	}
+}
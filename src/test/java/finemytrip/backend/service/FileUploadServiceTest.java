@@ -0,0 +1,221 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.repository.UploadedFileRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs outside a test transaction so that service calls commit and their after-commit deletes fire
+@DataJpaTest
+@Import(FileUploadService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FileUploadServiceTest {
+
+	private static final int UPLOADERS = 8;
+
+	private static Path uploadDir;
+
+	@Autowired
+	private FileUploadService fileUploadService;
+
+	@Autowired
+	private UploadedFileRepository uploadedFileRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@DynamicPropertySource
+	static void uploadProperties(DynamicPropertyRegistry registry) throws IOException {
+		uploadDir = Files.createTempDirectory("uploads");
+		registry.add("file.upload.path", uploadDir::toString);
+		registry.add("file.upload.url-prefix", () -> "/uploads");
+	}
+
+	@AfterAll
+	static void cleanUp() throws IOException {
+		FileSystemUtils.deleteRecursively(uploadDir);
+	}
+
+	@Test
+	void identicalUploadsShareOneFileUntilTheLastReferenceGoes() throws IOException {
+		byte[] image = "same hero image".getBytes(StandardCharsets.UTF_8);
+
+		String first = fileUploadService.uploadFile(new MockMultipartFile("file", "hero.png", "image/png", image));
+		String second = fileUploadService.uploadFile(new MockMultipartFile("file", "copy.PNG", "image/png", image));
+
+		assertThat(second).isEqualTo(first);
+		String filename = first.substring("/uploads/".length());
+		Path stored = uploadDir.resolve(filename);
+		assertThat(stored).hasBinaryContent(image);
+		assertThat(stored.getParent().getParent().getParent()).isEqualTo(uploadDir);
+		assertThat(uploadedFileRepository.findAllByFilenameIn(List.of(filename)))
+				.singleElement()
+				.satisfies(file -> assertThat(file.getReferenceCount()).isEqualTo(2));
+
+		fileUploadService.deleteFile(first);
+		fileUploadService.processPendingDeletions();
+		assertThat(stored).exists();
+
+		fileUploadService.deleteFile(second);
+		assertThat(uploadedFileRepository.findAllByFilenameIn(List.of(filename))).isEmpty();
+		assertThat(stored).exists();
+
+		fileUploadService.processPendingDeletions();
+		assertThat(stored).doesNotExist();
+	}
+
+	@Test
+	void rolledBackReleaseKeepsTheFileAndItsReference() throws IOException {
+		String url = fileUploadService.uploadFile(new MockMultipartFile("file", "slide.png", "image/png",
+				"slide kept after rollback".getBytes(StandardCharsets.UTF_8)));
+		String filename = url.substring("/uploads/".length());
+
+		transactionTemplate.executeWithoutResult(status -> {
+			fileUploadService.deleteFile(url);
+			status.setRollbackOnly();
+		});
+		fileUploadService.processPendingDeletions();
+
+		assertThat(uploadDir.resolve(filename)).exists();
+		assertThat(uploadedFileRepository.findAllByFilenameIn(List.of(filename)))
+				.singleElement()
+				.satisfies(file -> assertThat(file.getReferenceCount()).isEqualTo(1));
+	}
+
+	@Test
+	void contentUploadedAgainBeforeItsReleaseIsQueuedSurvives() throws Exception {
+		byte[] image = "released and uploaded again".getBytes(StandardCharsets.UTF_8);
+		String url = fileUploadService.uploadFile(new MockMultipartFile("file", "banner.png", "image/png", image));
+		String filename = url.substring("/uploads/".length());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch published = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		List<Future<String>> reUpload = new ArrayList<>();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			// Runs after the release commits but before it queues the file: the re-upload publishes and stays open
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					reUpload.add(executor.submit(() -> transactionTemplate.execute(uploadStatus -> {
+						try {
+							String again = fileUploadService.uploadFile(
+									new MockMultipartFile("file", "again.png", "image/png", image));
+							published.countDown();
+							commit.await(30, TimeUnit.SECONDS);
+							return again;
+						} catch (Exception e) {
+							throw new IllegalStateException(e);
+						}
+					})));
+					try {
+						assertThat(published.await(30, TimeUnit.SECONDS)).isTrue();
+					} catch (InterruptedException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+			fileUploadService.deleteFile(url);
+		});
+
+		// The re-upload's row has not committed, so only the publish order keeps the file
+		fileUploadService.processPendingDeletions();
+		commit.countDown();
+		assertThat(reUpload.get(0).get(30, TimeUnit.SECONDS)).isEqualTo(url);
+		executor.shutdown();
+
+		assertThat(uploadDir.resolve(filename)).hasBinaryContent(image);
+		assertThat(uploadedFileRepository.findAllByFilenameIn(List.of(filename)))
+				.singleElement()
+				.satisfies(file -> assertThat(file.getReferenceCount()).isEqualTo(1));
+	}
+
+	@Test
+	void concurrentFirstUploadsOfTheSameContentAllCount() throws Exception {
+		byte[] image = "uploaded by everyone at once".getBytes(StandardCharsets.UTF_8);
+		ExecutorService executor = Executors.newFixedThreadPool(UPLOADERS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<String>> uploads = new ArrayList<>();
+		for (int i = 0; i < UPLOADERS; i++) {
+			uploads.add(executor.submit(() -> {
+				start.await();
+				return fileUploadService.uploadFile(new MockMultipartFile("file", "same.png", "image/png", image));
+			}));
+		}
+		start.countDown();
+
+		Set<String> urls = new HashSet<>();
+		for (Future<String> upload : uploads) {
+			urls.add(upload.get(30, TimeUnit.SECONDS));
+		}
+		executor.shutdown();
+
+		assertThat(urls).hasSize(1);
+		String filename = urls.iterator().next().substring("/uploads/".length());
+		assertThat(uploadDir.resolve(filename)).hasBinaryContent(image);
+		assertThat(uploadedFileRepository.findAllByFilenameIn(List.of(filename)))
+				.singleElement()
+				.satisfies(file -> assertThat(file.getReferenceCount()).isEqualTo(UPLOADERS));
+	}
+
+	@Test
+	void sweeperRemovesOnlyOldUnreferencedFiles() throws IOException {
+		FileTime old = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+		String trackedUrl = fileUploadService.uploadFile(new MockMultipartFile("file", "tracked.png", "image/png",
+				"tracked upload".getBytes(StandardCharsets.UTF_8)));
+		Path tracked = uploadDir.resolve(trackedUrl.substring("/uploads/".length()));
+		Path orphan = write("ab/cd/orphan.png", old);
+		Path fresh = write("ab/cd/fresh.png", FileTime.from(Instant.now()));
+		Path abandoned = write(".tmp/upload-abandoned.part", old);
+		Files.setLastModifiedTime(tracked, old);
+
+		new OrphanUploadSweeper(fileUploadService, jdbcTemplate, uploadDir.toString(), "/uploads", 60).sweep();
+
+		assertThat(tracked).exists();
+		assertThat(fresh).exists();
+		assertThat(orphan).doesNotExist();
+		assertThat(abandoned).doesNotExist();
+	}
+
+	private Path write(String relative, FileTime modified) throws IOException {
+		Path file = uploadDir.resolve(relative);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, relative);
+		Files.setLastModifiedTime(file, modified);
+		return file;
+	}
+}
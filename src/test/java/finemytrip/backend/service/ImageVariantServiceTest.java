@@ -0,0 +1,137 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.entity.ImageVariant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Runs outside a test transaction so the after-commit hand-off fires right away
+@DataJpaTest
+@Import({FileUploadService.class, ImageVariantService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImageVariantServiceTest {
+
+	private static Path uploadDir;
+
+	@Autowired
+	private FileUploadService fileUploadService;
+
+	@Autowired
+	private ImageVariantService imageVariantService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@DynamicPropertySource
+	static void uploadProperties(DynamicPropertyRegistry registry) throws IOException {
+		uploadDir = Files.createTempDirectory("uploads");
+		registry.add("file.upload.path", uploadDir::toString);
+		registry.add("file.upload.url-prefix", () -> "/uploads");
+		registry.add("image.variants.widths", () -> "320,640,1280");
+	}
+
+	@AfterAll
+	static void cleanUp() throws IOException {
+		FileSystemUtils.deleteRecursively(uploadDir);
+	}
+
+	@Test
+	void rendersEveryNarrowerWidthAndSkipsUpscaling() throws Exception {
+		String wide = upload("wide.png", 1600, 900, Color.RED);
+		String narrow = upload("narrow.png", 500, 500, Color.BLUE);
+
+		List<ImageVariant> recorded = new ArrayList<>();
+		CountDownLatch done = new CountDownLatch(1);
+		imageVariantService.generateAfterCommit(List.of(wide, narrow), rendered -> {
+			recorded.addAll(imageVariantService.store(rendered, Set.of(wide, narrow), List.of()));
+			done.countDown();
+		});
+		assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(recorded)
+				.extracting(ImageVariant::getSourceUrl, ImageVariant::getWidth)
+				.containsExactlyInAnyOrder(
+						tuple(wide, 1280),
+						tuple(wide, 640),
+						tuple(wide, 320),
+						tuple(narrow, 320));
+
+		BufferedImage smallest = ImageIO.read(fileUploadService.resolvePath(recorded.stream()
+				.filter(variant -> variant.getSourceUrl().equals(wide) && variant.getWidth() == 320)
+				.findFirst()
+				.orElseThrow()
+				.getUrl()).toFile());
+		assertThat(smallest.getWidth()).isEqualTo(320);
+		assertThat(smallest.getHeight()).isEqualTo(180);
+		assertThat(new Color(smallest.getRGB(160, 90))).isEqualTo(Color.RED);
+
+		// Everything that was rendered has left the staging directory
+		try (var staged = Files.list(uploadDir.resolve(".tmp"))) {
+			assertThat(staged).isEmpty();
+		}
+	}
+
+	@Test
+	void oversizedSourcesAreDecodedSubsampled() throws Exception {
+		// 1600x900 is 1.44 MP; a 0.1 MP cap reads every 4th pixel, leaving 400x225
+		ImageVariantService capped = new ImageVariantService(fileUploadService, transactionTemplate,
+				new SimpleMeterRegistry(), uploadDir.toString(), List.of(320, 640, 1280), 1, 10, 100_000);
+		String huge = upload("huge.png", 1600, 900, Color.GREEN);
+
+		List<ImageVariant> recorded = new ArrayList<>();
+		CountDownLatch done = new CountDownLatch(1);
+		try {
+			capped.generateAfterCommit(List.of(huge), rendered -> {
+				recorded.addAll(capped.store(rendered, Set.of(huge), List.of()));
+				done.countDown();
+			});
+			assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+		} finally {
+			capped.shutdown();
+		}
+
+		assertThat(recorded).extracting(ImageVariant::getWidth).containsExactly(320);
+		BufferedImage variant = ImageIO.read(fileUploadService.resolvePath(recorded.get(0).getUrl()).toFile());
+		assertThat(variant.getHeight()).isEqualTo(180);
+		assertThat(new Color(variant.getRGB(160, 90))).isEqualTo(Color.GREEN);
+	}
+
+	private String upload(String filename, int width, int height, Color color) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(color);
+		graphics.fillRect(0, 0, width, height);
+		graphics.dispose();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return fileUploadService.uploadFile(new MockMultipartFile("file", filename, "image/png", out.toByteArray()));
+	}
+}
@@ -0,0 +1,111 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.dto.MemberRegisterRequestDto;
+import finemytrip.backend.exception.DuplicateEmailException;
+import finemytrip.backend.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"jwt.secret.key=registration-test-secret-key-that-is-long-enough-for-hs256",
+		"jwt.expiration.time=3600000",
+		"file.upload.path=${java.io.tmpdir}/finemytrip-test-uploads",
+		"file.upload.url-prefix=/uploads",
+		"security.password.bcrypt-strength=4",
+		"security.password-hashing.queue-capacity=256"
+})
+class MemberServiceRegistrationTest {
+
+	private static final int THREADS = 16;
+	private static final int ATTEMPTS = 64;
+
+	@Autowired
+	private MemberService memberService;
+
+	@Autowired
+	private MemberRepository memberRepository;
+
+	@AfterEach
+	void tearDown() {
+		memberRepository.deleteAll();
+	}
+
+	@Test
+	void concurrentSignUpsWithSameEmailCreateOneMember() throws Exception {
+		List<Boolean> results = register(index -> "same@example.com");
+
+		assertThat(results).containsOnlyOnce(true);
+		assertThat(memberRepository.findByEmail("same@example.com")).isPresent();
+		assertThat(memberRepository.count()).isEqualTo(1);
+	}
+
+	@Test
+	void concurrentSignUpsWithDistinctEmailsAllSucceed() throws Exception {
+		List<Boolean> results = register(index -> "user" + index + "@example.com");
+
+		assertThat(results).containsOnly(true);
+		assertThat(memberRepository.count()).isEqualTo(ATTEMPTS);
+	}
+
+	@Test
+	void otherIntegrityViolationsAreNotReportedAsDuplicates() {
+		MemberRegisterRequestDto request = MemberRegisterRequestDto.builder()
+				.password("password")
+				.marketingAgreed(false)
+				.build();
+
+		assertThatThrownBy(() -> memberService.register(request).join())
+				.isInstanceOf(CompletionException.class)
+				.cause()
+				.isInstanceOf(DataIntegrityViolationException.class)
+				.isNotInstanceOf(DuplicateEmailException.class);
+	}
+
+	// Returns true for each created member, false for each clean duplicate rejection
+	private List<Boolean> register(IntFunction<String> emails) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> futures = new ArrayList<>();
+		for (int i = 0; i < ATTEMPTS; i++) {
+			MemberRegisterRequestDto request = MemberRegisterRequestDto.builder()
+					.email(emails.apply(i))
+					.password("password" + i)
+					.marketingAgreed(false)
+					.build();
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					memberService.register(request).join();
+					return true;
+				} catch (CompletionException e) {
+					assertThat(e.getCause()).isInstanceOf(DuplicateEmailException.class);
+					return false;
+				}
+			}));
+		}
+		start.countDown();
+
+		List<Boolean> results = new ArrayList<>();
+		for (Future<Boolean> future : futures) {
+			results.add(future.get(30, TimeUnit.SECONDS));
+		}
+		executor.shutdown();
+		return results;
+	}
+}
@@ -0,0 +1,36 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.config.SecurityConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordHashingServiceTest {
+
+	@Test
+	void hashesOnOtherSettingsNeedAnUpgrade() {
+		PasswordHashingService strength5 = service("bcrypt", 5);
+		String current = encoder("bcrypt", 5).encode("password");
+
+		assertThat(strength5.needsUpgrade(current)).isFalse();
+		// Lowering the configured cost rehashes too, not only raising it
+		assertThat(strength5.needsUpgrade(encoder("bcrypt", 6).encode("password"))).isTrue();
+		assertThat(strength5.needsUpgrade(encoder("bcrypt", 4).encode("password"))).isTrue();
+		assertThat(strength5.needsUpgrade(encoder("pbkdf2", 5).encode("password"))).isTrue();
+		assertThat(strength5.needsUpgrade(new BCryptPasswordEncoder(5).encode("password"))).isTrue();
+
+		assertThat(service("pbkdf2", 5).needsUpgrade(current)).isTrue();
+	}
+
+	private static PasswordHashingService service(String encodingId, int bcryptStrength) {
+		return new PasswordHashingService(encoder(encodingId, bcryptStrength), new SimpleMeterRegistry(),
+				encodingId, bcryptStrength, 1, 1);
+	}
+
+	private static PasswordEncoder encoder(String encodingId, int bcryptStrength) {
+		return new SecurityConfig(null, null).passwordEncoder(encodingId, bcryptStrength);
+	}
+}
@@ -0,0 +1,100 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.dto.ProductChangesResponseDto;
+import finemytrip.backend.dto.ProductRequestDto;
+import finemytrip.backend.dto.ProductResponseDto;
+import finemytrip.backend.entity.ProductTombstone;
+import finemytrip.backend.repository.ProductRepository;
+import finemytrip.backend.repository.ProductTombstoneRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"jwt.secret.key=changes-test-secret-key-that-is-long-enough-for-hs256",
+		"jwt.expiration.time=3600000",
+		"file.upload.path=${java.io.tmpdir}/finemytrip-test-uploads",
+		"file.upload.url-prefix=/uploads",
+		"product.changes.tombstone-retention-days=30"
+})
+class ProductChangesTest {
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductTombstoneRepository productTombstoneRepository;
+
+	@AfterEach
+	void tearDown() {
+		productRepository.deleteAll();
+		productTombstoneRepository.deleteAll();
+	}
+
+	@Test
+	void deltasCarryUpdatesAndDeletesSinceTheWatermark() throws Exception {
+		Long kept = productService.createProduct(product("Seoul")).getId();
+		Long removed = productService.createProduct(product("Busan")).getId();
+
+		ProductChangesResponseDto bootstrap = productService.getProductChanges(null);
+		assertThat(bootstrap.isResyncRequired()).isFalse();
+		assertThat(bootstrap.getUpserts()).extracting(ProductResponseDto::getId).contains(kept, removed);
+
+		productService.updateProduct(kept, product("Seoul Night Tour"));
+		productService.deleteProduct(removed);
+
+		ProductChangesResponseDto delta = productService.getProductChanges(String.valueOf(bootstrap.getWatermark()));
+		assertThat(delta.isResyncRequired()).isFalse();
+		assertThat(delta.getUpserts()).extracting(ProductResponseDto::getTitle).containsExactly("Seoul Night Tour");
+		assertThat(delta.getDeletedIds()).containsExactly(removed);
+		assertThat(delta.getWatermark()).isGreaterThan(bootstrap.getWatermark());
+
+		ProductChangesResponseDto next = productService.getProductChanges(String.valueOf(delta.getWatermark()));
+		assertThat(next.getUpserts()).isEmpty();
+		assertThat(next.getDeletedIds()).isEmpty();
+		assertThat(next.getWatermark()).isEqualTo(delta.getWatermark());
+	}
+
+	@Test
+	void watermarksOlderThanPrunedTombstonesRequireAResync() throws Exception {
+		Long removed = productService.createProduct(product("Jeju")).getId();
+		Long kept = productService.createProduct(product("Gangneung")).getId();
+		String since = String.valueOf(productService.getProductChanges(null).getWatermark());
+
+		productService.deleteProduct(removed);
+		ProductTombstone tombstone = productTombstoneRepository.findAll().get(0);
+		tombstone.setDeletedAt(LocalDateTime.now().minusDays(31));
+		productTombstoneRepository.save(tombstone);
+
+		productService.pruneTombstones();
+
+		assertThat(productTombstoneRepository.count()).isZero();
+		ProductChangesResponseDto changes = productService.getProductChanges(since);
+		assertThat(changes.isResyncRequired()).isTrue();
+		assertThat(changes.getUpserts()).extracting(ProductResponseDto::getId).containsExactly(kept);
+	}
+
+	@Test
+	void unknownWatermarksRequireAResync() throws Exception {
+		productService.createProduct(product("Incheon"));
+
+		assertThat(productService.getProductChanges("2024-01-01T00:00:00").isResyncRequired()).isTrue();
+		assertThat(productService.getProductChanges(String.valueOf(Long.MAX_VALUE)).isResyncRequired()).isTrue();
+	}
+
+	private static ProductRequestDto product(String title) {
+		ProductRequestDto request = new ProductRequestDto();
+		request.setTripType("domestic");
+		request.setTitle(title);
+		request.setCurrPrice(100000);
+		return request;
+	}
+}
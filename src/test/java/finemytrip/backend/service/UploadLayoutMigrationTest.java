@@ -0,0 +1,105 @@
+package finemytrip.backend.service;
+
+import finemytrip.backend.entity.MainSlide;
+import finemytrip.backend.entity.Product;
+import finemytrip.backend.repository.MainSlideRepository;
+import finemytrip.backend.repository.ProductRepository;
+import finemytrip.backend.repository.UploadedFileRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(ChangeCounterService.class)
+class UploadLayoutMigrationTest {
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private MainSlideRepository mainSlideRepository;
+
+	@Autowired
+	private UploadedFileRepository uploadedFileRepository;
+
+	@Autowired
+	private ChangeCounterService changeCounterService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private Path uploadDir;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		uploadDir = Files.createTempDirectory("uploads");
+	}
+
+	@AfterEach
+	void cleanUp() throws IOException {
+		FileSystemUtils.deleteRecursively(uploadDir);
+	}
+
+	@Test
+	void movesFlatFilesIntoShardsAndRewritesEveryReference() throws Exception {
+		byte[] image = "legacy hero image".getBytes(StandardCharsets.UTF_8);
+		Files.write(uploadDir.resolve("0b6f-legacy.PNG"), image);
+		Files.write(uploadDir.resolve("unreferenced.png"), "nobody links here".getBytes(StandardCharsets.UTF_8));
+		String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+		String newName = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".png";
+
+		Long productId = productRepository.save(Product.builder()
+				.title("Seoul")
+				.thumbnailSrc("/uploads/0b6f-legacy.PNG")
+				.imgSrc("/uploads/0b6f-legacy.PNG")
+				.build()).getId();
+		Long slideId = mainSlideRepository.save(MainSlide.builder()
+				.title("Spring")
+				.url("#")
+				.bgSrc("/uploads/0b6f-legacy.PNG")
+				.build()).getId();
+		entityManager.flush();
+		entityManager.clear();
+		long versionBefore = changeCounterService.current(ChangeCounterService.PRODUCTS);
+
+		new UploadLayoutMigration(uploadedFileRepository, changeCounterService, jdbcTemplate, transactionTemplate, uploadDir.toString(), "/uploads")
+				.afterSingletonsInstantiated();
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(uploadDir.resolve("0b6f-legacy.PNG")).doesNotExist();
+		assertThat(uploadDir.resolve(newName)).hasBinaryContent(image);
+
+		Product product = productRepository.findById(productId).orElseThrow();
+		assertThat(product.getThumbnailSrc()).isEqualTo("/uploads/" + newName);
+		assertThat(product.getImgSrc()).isEqualTo("/uploads/" + newName);
+		// Only the file a product refers to takes a change feed version
+		assertThat(changeCounterService.current(ChangeCounterService.PRODUCTS)).isEqualTo(versionBefore + 1);
+		assertThat(product.getChangeVersion()).isEqualTo(versionBefore + 1);
+		assertThat(mainSlideRepository.findById(slideId).orElseThrow().getBgSrc()).isEqualTo("/uploads/" + newName);
+		assertThat(uploadedFileRepository.findByFilename(newName))
+				.hasValueSatisfying(file -> assertThat(file.getReferenceCount()).isEqualTo(3));
+	}
+}
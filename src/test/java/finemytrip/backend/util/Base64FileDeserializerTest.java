@@ -0,0 +1,185 @@
+package finemytrip.backend.util;
+
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.cfg.HandlerInstantiator;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import finemytrip.backend.config.StagedFileCleanupFilter;
+import finemytrip.backend.dto.ProductRequestDto;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Base64FileDeserializerTest {
+
+	private static final int IMAGE_BYTES = 20 * 1024 * 1024;
+
+	@TempDir
+	Path uploadDir;
+
+	private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void setUp() {
+		objectMapper = new ObjectMapper();
+		objectMapper.setHandlerInstantiator(new StagingHandlerInstantiator(uploadDir.toString()));
+	}
+
+	@Test
+	void dataUriImageIsDecodedToStagingFile() throws Exception {
+		byte[] image = "not really a png".getBytes(StandardCharsets.UTF_8);
+		String json = "{\"title\":\"data:text/plain;base64,kept\",\"infoGroup\":[\"data:x;base64,AA\"],"
+				+ "\"introText\":\"data:;base64,\","
+				+ "\"imgSrc\":\"data:image/png;base64," + Base64.getEncoder().encodeToString(image) + "\","
+				+ "\"thumbnailSrc\":\"\",\"introImgSrc\":null}";
+
+		ProductRequestDto request = read(json.getBytes(StandardCharsets.UTF_8));
+
+		assertThat(request.getTitle()).isEqualTo("data:text/plain;base64,kept");
+		assertThat(request.getInfoGroup()).containsExactly("data:x;base64,AA");
+		assertThat(request.getIntroText()).isEqualTo("data:;base64,");
+		assertThat(request.getThumbnailSrc()).isNull();
+		assertThat(request.getIntroImgSrc()).isNull();
+		assertThat(Files.readAllBytes(request.getImgSrc().getPath())).isEqualTo(image);
+		assertThat(request.getImgSrc().getPath().getParent()).isEqualTo(uploadDir.resolve(StagedFile.STAGING_DIRECTORY));
+	}
+
+	@Test
+	void onlyImagePropertiesAreStripped() {
+		assertThat(Base64FileDeserializer.propertiesOf(ProductRequestDto.class))
+				.containsExactlyInAnyOrder("thumbnailSrc", "imgSrc", "introImgSrc");
+	}
+
+	@Test
+	void filesStagedForARejectedBodyAreRemovedAtRequestEnd() throws Exception {
+		String json = "{\"imgSrc\":\"data:image/png;base64," + Base64.getEncoder().encodeToString(new byte[64]) + "\","
+				+ "\"currPrice\":\"not a number\"}";
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/products");
+
+		new StagedFileCleanupFilter().doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+			RequestContextHolder.setRequestAttributes(new ServletRequestAttributes((HttpServletRequest) servletRequest));
+			try {
+				assertThatThrownBy(() -> read(json.getBytes(StandardCharsets.UTF_8)))
+						.isInstanceOf(InvalidFormatException.class);
+				assertThat(stagingFiles()).isNotEmpty();
+			} finally {
+				RequestContextHolder.resetRequestAttributes();
+			}
+		});
+
+		assertThat(stagingFiles()).isEmpty();
+	}
+
+	// A 20 MB image used to cost the encoded String, the decoded byte[] and copies of both
+	@Test
+	void largeImageIsDecodedWithConstantMemory() throws Exception {
+		byte[] image = new byte[IMAGE_BYTES];
+		new Random(42).nextBytes(image);
+		byte[] body = ("{\"title\":\"large\",\"imgSrc\":\"data:image/png;base64,"
+				+ Base64.getEncoder().encodeToString(image) + "\"}").getBytes(StandardCharsets.US_ASCII);
+
+		long before = allocatedBytes();
+		ProductRequestDto request = read(body);
+		long streamingAllocated = allocatedBytes() - before;
+
+		before = allocatedBytes();
+		ProductRequestDto legacyRequest = new ObjectMapper().readValue(body, LegacyRequest.class).decode();
+		long legacyAllocated = allocatedBytes() - before;
+
+		MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+		assertThat(request.getImgSrc().getSize()).isEqualTo(IMAGE_BYTES);
+		assertThat(sha256.digest(Files.readAllBytes(request.getImgSrc().getPath())))
+				.isEqualTo(MessageDigest.getInstance("SHA-256").digest(image));
+		assertThat(legacyRequest).isNotNull();
+		assertThat(streamingAllocated).isLessThan(IMAGE_BYTES / 4).isLessThan(legacyAllocated);
+	}
+
+	private ProductRequestDto read(byte[] body) throws Exception {
+		return objectMapper.readValue(new DataUriStrippingInputStream(new ByteArrayInputStream(body),
+				Base64FileDeserializer.propertiesOf(ProductRequestDto.class)), ProductRequestDto.class);
+	}
+
+	private List<Path> stagingFiles() throws Exception {
+		try (Stream<Path> files = Files.list(uploadDir.resolve(StagedFile.STAGING_DIRECTORY))) {
+			return files.toList();
+		}
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+	}
+
+	// The previous approach: bind the field as a String, strip the header and decode it in one go
+	static class LegacyRequest {
+
+		public String title;
+		public String imgSrc;
+
+		ProductRequestDto decode() {
+			byte[] decoded = Base64.getDecoder().decode(imgSrc.substring(imgSrc.indexOf(',') + 1));
+			return decoded.length > 0 ? ProductRequestDto.builder().title(title).build() : null;
+		}
+	}
+
+	// Stands in for Spring's handler instantiator, which supplies file.upload.path in the application
+	private static class StagingHandlerInstantiator extends HandlerInstantiator {
+
+		private final String uploadPath;
+
+		StagingHandlerInstantiator(String uploadPath) {
+			this.uploadPath = uploadPath;
+		}
+
+		@Override
+		public JsonDeserializer<?> deserializerInstance(DeserializationConfig config, Annotated annotated, Class<?> deserClass) {
+			return deserClass == Base64FileDeserializer.class ? new Base64FileDeserializer(uploadPath) : null;
+		}
+
+		@Override
+		public KeyDeserializer keyDeserializerInstance(DeserializationConfig config, Annotated annotated, Class<?> keyDeserClass) {
+			return null;
+		}
+
+		@Override
+		public JsonSerializer<?> serializerInstance(SerializationConfig config, Annotated annotated, Class<?> serClass) {
+			return null;
+		}
+
+		@Override
+		public TypeResolverBuilder<?> typeResolverBuilderInstance(MapperConfig<?> config, Annotated annotated, Class<?> builderClass) {
+			return null;
+		}
+
+		@Override
+		public TypeIdResolver typeIdResolverInstance(MapperConfig<?> config, Annotated annotated, Class<?> resolverClass) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package finemytrip.backend.util;
+
+import finemytrip.backend.entity.Member;
+import finemytrip.backend.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class MemberTokenVersionsTest {
+
+	@Autowired
+	private MemberRepository memberRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void revocationsAreSeenByFreshNodes() {
+		Member member = memberRepository.save(Member.builder()
+				.email("member@example.com")
+				.password("hash")
+				.build());
+		TokenClaims issued = claims(member.getId(), new MemberTokenVersions(memberRepository, 100, 30).currentVersion(member.getId()));
+
+		new MemberTokenVersions(memberRepository, 100, 30).revokeAll(member);
+		entityManager.flush();
+
+		// A restarted or different node only has the database to go by
+		MemberTokenVersions otherNode = new MemberTokenVersions(memberRepository, 100, 30);
+		assertThat(otherNode.isCurrent(issued)).isFalse();
+		assertThat(otherNode.isCurrent(claims(member.getId(), otherNode.currentVersion(member.getId())))).isTrue();
+	}
+
+	@Test
+	void tokensOfDeletedMembersAreNeverCurrent() {
+		Member member = memberRepository.save(Member.builder()
+				.email("deleted@example.com")
+				.password("hash")
+				.build());
+		memberRepository.delete(member);
+		entityManager.flush();
+
+		assertThat(new MemberTokenVersions(memberRepository, 100, 30).isCurrent(claims(member.getId(), 0))).isFalse();
+	}
+
+	private static TokenClaims claims(Long memberId, int tokenVersion) {
+		return new TokenClaims("digest", "member@example.com", memberId, new Date(System.currentTimeMillis() + 60_000), tokenVersion);
+	}
+}
@@ -0,0 +1,58 @@
+package finemytrip.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RotatingBloomFilterTest {
+
+	private static final long BUCKET_MILLIS = 60_000;
+	private static final int REVOKED = 100_000;
+
+	@Test
+	void revokedDigestsAreAlwaysReported() {
+		RotatingBloomFilter filter = new RotatingBloomFilter(8, BUCKET_MILLIS, REVOKED, 0.01);
+		long expiresAt = System.currentTimeMillis() + BUCKET_MILLIS;
+		List<String> digests = digests("revoked-", REVOKED);
+		digests.forEach(digest -> filter.put(digest, expiresAt));
+
+		assertThat(digests).allMatch(filter::mightContain);
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTarget() {
+		RotatingBloomFilter filter = new RotatingBloomFilter(8, BUCKET_MILLIS, REVOKED, 0.01);
+		long expiresAt = System.currentTimeMillis() + BUCKET_MILLIS;
+		digests("revoked-", REVOKED).forEach(digest -> filter.put(digest, expiresAt));
+
+		long falsePositives = digests("active-", REVOKED).stream().filter(filter::mightContain).count();
+
+		assertThat(falsePositives).isLessThan(REVOKED / 50);
+	}
+
+	@Test
+	void expiredSlicesAreCleared() {
+		RotatingBloomFilter filter = new RotatingBloomFilter(8, BUCKET_MILLIS, 1000, 0.01);
+		long now = System.currentTimeMillis();
+		String shortLived = TokenDigests.sha256("short-lived");
+		String longLived = TokenDigests.sha256("long-lived");
+		filter.put(shortLived, now + 1000);
+		filter.put(longLived, now + 5 * BUCKET_MILLIS);
+
+		filter.rotate(now + 2 * BUCKET_MILLIS);
+
+		assertThat(filter.mightContain(shortLived)).isFalse();
+		assertThat(filter.mightContain(longLived)).isTrue();
+	}
+
+	private static List<String> digests(String prefix, int count) {
+		List<String> digests = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			digests.add(TokenDigests.sha256(prefix + i));
+		}
+		return digests;
+	}
+}
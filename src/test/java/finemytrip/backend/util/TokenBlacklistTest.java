@@ -0,0 +1,85 @@
+package finemytrip.backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBlacklistTest {
+
+	private static final long EXPIRATION = 3_600_000;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void revocationIsHonoredByOtherNodes() {
+		InProcessRevocationPropagator propagator = new InProcessRevocationPropagator();
+		TokenBlacklist nodeA = node(RevocationLog.NONE, propagator);
+		TokenBlacklist nodeB = node(RevocationLog.NONE, propagator);
+		String digest = TokenDigests.sha256("token");
+
+		nodeA.addToBlacklist(digest, System.currentTimeMillis() + EXPIRATION);
+
+		assertThat(nodeA.isDigestBlacklisted(digest)).isTrue();
+		assertThat(nodeB.isDigestBlacklisted(digest)).isTrue();
+		assertThat(nodeB.isDigestBlacklisted(TokenDigests.sha256("other"))).isFalse();
+	}
+
+	@Test
+	void revocationsSurviveRestart() {
+		Path logPath = tempDir.resolve("revocations.log");
+		String live = TokenDigests.sha256("live");
+		String remote = TokenDigests.sha256("remote");
+
+		FileRevocationLog firstLog = new FileRevocationLog(logPath);
+		InProcessRevocationPropagator propagator = new InProcessRevocationPropagator();
+		node(firstLog, propagator);
+		TokenBlacklist peer = node(RevocationLog.NONE, propagator);
+		firstLog.append(TokenDigests.sha256("expired"), System.currentTimeMillis() - 1);
+		peer.addToBlacklist(remote, System.currentTimeMillis() + EXPIRATION);
+		propagator.publish(live, System.currentTimeMillis() + EXPIRATION);
+		firstLog.close();
+
+		TokenBlacklist restarted = node(new FileRevocationLog(logPath), new InProcessRevocationPropagator());
+
+		assertThat(restarted.isDigestBlacklisted(live)).isTrue();
+		assertThat(restarted.isDigestBlacklisted(remote)).isTrue();
+		assertThat(restarted.isDigestBlacklisted(TokenDigests.sha256("expired"))).isFalse();
+		assertThat(restarted.size()).isEqualTo(2);
+	}
+
+	@Test
+	void runningLogCompactsExpiredRevocations() throws IOException {
+		Path logPath = tempDir.resolve("revocations.log");
+		String live = TokenDigests.sha256("live");
+		FileRevocationLog log = new FileRevocationLog(logPath, 4);
+
+		for (int i = 0; i < 3; i++) {
+			log.append(TokenDigests.sha256("expired-" + i), System.currentTimeMillis() - 1);
+		}
+		assertThat(Files.size(logPath)).isEqualTo(3 * 40);
+		log.append(live, System.currentTimeMillis() + EXPIRATION);
+
+		// The fourth record reached the threshold, so only the live one is left
+		assertThat(Files.size(logPath)).isEqualTo(40);
+		log.append(TokenDigests.sha256("next"), System.currentTimeMillis() + EXPIRATION);
+		log.close();
+
+		List<String> replayed = new ArrayList<>();
+		new FileRevocationLog(logPath).replay(System.currentTimeMillis(), (digest, expiresAt) -> replayed.add(digest));
+		assertThat(replayed).containsExactly(live, TokenDigests.sha256("next"));
+	}
+
+	private static TokenBlacklist node(RevocationLog log, RevocationPropagator propagator) {
+		TokenBlacklist blacklist = new TokenBlacklist(log, propagator, EXPIRATION, 8, 1000, 0.01);
+		blacklist.init();
+		return blacklist;
+	}
+}
@@ -0,0 +1,46 @@
+package finemytrip.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+	@Test
+	void fullCacheEvictsTheTokenClosestToExpiry() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(3);
+		long now = System.currentTimeMillis();
+		cache.put(claims("late", now + 30_000));
+		cache.put(claims("soon", now + 10_000));
+		cache.put(claims("middle", now + 20_000));
+
+		cache.put(claims("new", now + 40_000));
+
+		assertThat(cache.size()).isEqualTo(3);
+		assertThat(cache.get("soon")).isNull();
+		assertThat(cache.get("late")).isNotNull();
+		assertThat(cache.get("middle")).isNotNull();
+		assertThat(cache.get("new")).isNotNull();
+	}
+
+	@Test
+	void invalidatedTokensDoNotPinTheQueue() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(2);
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 1000; i++) {
+			cache.put(claims("token-" + i, now + 60_000 + i));
+			cache.invalidate("token-" + i);
+		}
+		cache.put(claims("a", now + 60_000));
+		cache.put(claims("b", now + 60_000));
+
+		assertThat(cache.get("a")).isNotNull();
+		assertThat(cache.get("b")).isNotNull();
+	}
+
+	private static TokenClaims claims(String digest, long expiresAt) {
+		return new TokenClaims(digest, "member@example.com", 1L, new Date(expiresAt), 0);
+	}
+}